@@ -8,6 +8,7 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.exceptions.ServiceUnavailableException;
 import ru.yandex.practicum.filmorate.exceptions.ValidationException;
 
 import java.util.HashMap;
@@ -49,6 +50,14 @@ public class ErrorHandler {
         );
     }
 
+    @ExceptionHandler
+    public ResponseEntity<Map<String, String>> handleServiceUnavailableException(final ServiceUnavailableException e) {
+        log.warn("Ошибка! {}", e.getMessage());
+        return new ResponseEntity<>(
+                Map.of("error", e.getMessage()), HttpStatus.SERVICE_UNAVAILABLE
+        );
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Object> handleValidationExceptions(MethodArgumentNotValidException ex) {
         Map<String, String> errors = new HashMap<>();
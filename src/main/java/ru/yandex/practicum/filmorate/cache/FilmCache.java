@@ -0,0 +1,173 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.event.DirectorEvent;
+import ru.yandex.practicum.filmorate.event.FilmEvent;
+import ru.yandex.practicum.filmorate.event.LikeEvent;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.enums.FilmField;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Ограниченный LRU-кэш полностью собранных фильмов (с жанрами, режиссёрами и лайками).
+ * Наружу всегда отдаются копии запрошенных полей, поэтому вызывающий код может свободно менять полученный объект.
+ * <p>
+ * Записи сбрасываются дважды: сразу при публикации события — чтобы следующий запрос внутри
+ * той же транзакции не получил старое значение, — и после завершения транзакции, чтобы убрать то,
+ * что могло попасть в кэш до коммита или из откатившейся транзакции.
+ */
+@Slf4j
+@Component
+public class FilmCache {
+    private final int maxSize;
+    private final Map<Long, Film> films;
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    @Autowired
+    public FilmCache(@Value("${filmorate.cache.films.max-size:1000}") int maxSize) {
+        this.maxSize = maxSize;
+        this.films = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Film> eldest) {
+                if (size() > FilmCache.this.maxSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Возвращает копию фильма из кэша, а при промахе загружает его через loader и запоминает.
+     * В копию попадают только запрошенные поля-коллекции, остальные остаются null, так что
+     * запрос без likes не копирует множество лайков. Если пока шла загрузка кэш был сброшен,
+     * загруженное значение не сохраняется.
+     */
+    public Film get(Long id, Set<FilmField> fields, Function<Long, Film> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            Film film = films.get(id);
+            if (film != null) {
+                hits++;
+                return copy(film, fields);
+            }
+            misses++;
+            loadGeneration = generation;
+        }
+        Film film = loader.apply(id);
+        synchronized (this) {
+            if (loadGeneration == generation && maxSize > 0) {
+                films.put(id, film);
+            }
+        }
+        return copy(film, fields);
+    }
+
+    /**
+     * Есть ли фильм в кэше. Ничего не копирует и не меняет порядок вытеснения.
+     */
+    public synchronized boolean contains(Long id) {
+        return films.containsKey(id);
+    }
+
+    public synchronized void invalidate(Long id) {
+        generation++;
+        if (films.remove(id) != null) {
+            invalidations++;
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        invalidations += films.size();
+        films.clear();
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(films.size(), maxSize, hits, misses, evictions, invalidations);
+    }
+
+    @EventListener
+    public void onFilm(FilmEvent event) {
+        invalidate(event.getFilmId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION)
+    public void afterFilm(FilmEvent event) {
+        invalidate(event.getFilmId());
+    }
+
+    @EventListener
+    public void onLike(LikeEvent event) {
+        invalidate(event.getFilmId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION)
+    public void afterLike(LikeEvent event) {
+        invalidate(event.getFilmId());
+    }
+
+    @EventListener
+    public void onDirector(DirectorEvent event) {
+        invalidateDirector(event.getDirectorId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION)
+    public void afterDirector(DirectorEvent event) {
+        invalidateDirector(event.getDirectorId());
+    }
+
+    private synchronized void invalidateDirector(Long directorId) {
+        generation++;
+        int before = films.size();
+        films.values().removeIf(film -> film.getDirectors().stream()
+                .map(Director::getId)
+                .anyMatch(directorId::equals));
+        invalidations += before - films.size();
+    }
+
+    private static Film copy(Film film, Set<FilmField> fields) {
+        return film.toBuilder()
+                .likes(fields.contains(FilmField.likes) ? new HashSet<>(film.getLikes()) : null)
+                .likeCount(fields.contains(FilmField.likeCount) ? film.getLikeCount() : null)
+                .mpa(film.getMpa() == null ? null : new Mpa(film.getMpa().getId(), film.getMpa().getName()))
+                .genres(!fields.contains(FilmField.genres) ? null : film.getGenres().stream()
+                        .map(genre -> new Genre(genre.getId(), genre.getName()))
+                        .collect(Collectors.toCollection(ArrayList::new)))
+                .directors(!fields.contains(FilmField.directors) ? null : film.getDirectors().stream()
+                        .map(director -> new Director(director.getId(), director.getName()))
+                        .collect(Collectors.toCollection(ArrayList::new)))
+                .build();
+    }
+
+    @lombok.Value
+    public static class Stats {
+        int size;
+        int maxSize;
+        long hits;
+        long misses;
+        long evictions;
+        long invalidations;
+    }
+}
@@ -0,0 +1,145 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.event.FilmEvent;
+import ru.yandex.practicum.filmorate.event.ReviewEvent;
+import ru.yandex.practicum.filmorate.event.UserEvent;
+import ru.yandex.practicum.filmorate.model.Review;
+import ru.yandex.practicum.filmorate.model.enums.Operation;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Первые topK отзывов по полезности для последних запрошенных фильмов (LRU по фильмам).
+ * Список берётся из БД уже упорядоченным по индексу, поэтому запрос с count не больше topK
+ * отдаётся из памяти без сортировки. Запросы с большим count идут в БД напрямую.
+ * <p>
+ * Сброс устроен так же, как в {@link FilmCache}: сразу при событии и ещё раз после завершения транзакции.
+ */
+@Slf4j
+@Component
+public class ReviewTopCache {
+    private final int topK;
+    private final int maxFilms;
+    private final Map<Long, List<Review>> reviews;
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    @Autowired
+    public ReviewTopCache(@Value("${filmorate.cache.reviews.top-k:10}") int topK,
+                          @Value("${filmorate.cache.reviews.max-films:1000}") int maxFilms) {
+        this.topK = topK;
+        this.maxFilms = maxFilms;
+        this.reviews = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, List<Review>> eldest) {
+                if (size() > ReviewTopCache.this.maxFilms) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Возвращает первые count отзывов к фильму. При промахе loader вызывается с topK, результат запоминается,
+     * если пока шла загрузка кэш не сбрасывали.
+     */
+    public List<Review> getTop(Long filmId, int count, BiFunction<Long, Integer, List<Review>> loader) {
+        if (count <= 0 || count > topK) {
+            return loader.apply(filmId, count);
+        }
+        long loadGeneration;
+        synchronized (this) {
+            List<Review> top = reviews.get(filmId);
+            if (top != null) {
+                hits++;
+                return copy(top.subList(0, Math.min(count, top.size())));
+            }
+            misses++;
+            loadGeneration = generation;
+        }
+        List<Review> top = loader.apply(filmId, topK);
+        synchronized (this) {
+            if (loadGeneration == generation && maxFilms > 0) {
+                reviews.put(filmId, copy(top));
+            }
+        }
+        return copy(top.subList(0, Math.min(count, top.size())));
+    }
+
+    public synchronized void invalidate(Long filmId) {
+        generation++;
+        if (reviews.remove(filmId) != null) {
+            invalidations++;
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        invalidations += reviews.size();
+        reviews.clear();
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(reviews.size(), maxFilms, topK, hits, misses, evictions, invalidations);
+    }
+
+    @EventListener
+    public void onReview(ReviewEvent event) {
+        invalidate(event.getFilmId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION)
+    public void afterReview(ReviewEvent event) {
+        invalidate(event.getFilmId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void afterFilm(FilmEvent event) {
+        if (event.getOperation() == Operation.REMOVE) {
+            invalidate(event.getFilmId());
+        }
+    }
+
+    /**
+     * Удаление пользователя каскадом удаляет его отзывы и оценки к отзывам любых фильмов.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void afterUser(UserEvent event) {
+        if (event.getOperation() == Operation.REMOVE) {
+            invalidateAll();
+        }
+    }
+
+    private static List<Review> copy(List<Review> reviews) {
+        return reviews.stream()
+                .map(review -> review.toBuilder().build())
+                .collect(Collectors.toList());
+    }
+
+    @lombok.Value
+    public static class Stats {
+        int size;
+        int maxSize;
+        int topK;
+        long hits;
+        long misses;
+        long evictions;
+        long invalidations;
+    }
+}
@@ -1,45 +1,75 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSuggestion;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.model.UserSummary;
+import ru.yandex.practicum.filmorate.model.enums.FilmField;
 import ru.yandex.practicum.filmorate.model.enums.FilmParameter;
+import ru.yandex.practicum.filmorate.model.enums.LikeResponse;
+import ru.yandex.practicum.filmorate.model.enums.PopularSort;
 import ru.yandex.practicum.filmorate.model.enums.SortParam;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
 import javax.validation.Valid;
-import java.util.Collection;
-import java.util.Optional;
+import java.util.*;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/films")
 @Slf4j
 public class FilmController {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final FilmService filmService;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public FilmController(FilmService filmService) {
+    public FilmController(FilmService filmService, ObjectMapper objectMapper) {
         this.filmService = filmService;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping
-    @ResponseStatus(HttpStatus.OK)
-    public Collection<Film> getFilms() {
-        log.info("Получен запрос GET на получение списка всех фильмов");
-        Collection<Film> films = filmService.getFilms();
-        log.info("Вывод фильмов. Размер списка фильмов: {}", films.size());
-        return films;
+    public ResponseEntity<Collection<?>> getFilms(@RequestParam(required = false) Optional<Integer> limit,
+                                                  @RequestParam(required = false) Optional<String> after,
+                                                  @RequestParam(required = false) Optional<FilmField[]> fields) {
+        if (limit.isEmpty() && after.isPresent()) {
+            throw new ValidationException("Курсор after передаётся только вместе с limit");
+        }
+        if (limit.isEmpty()) {
+            log.info("Получен запрос GET на получение списка всех фильмов");
+            Collection<Film> films = filmService.getFilms(toFieldSet(fields));
+            log.info("Вывод фильмов. Размер списка фильмов: {}", films.size());
+            return new ResponseEntity<>(project(films, fields), HttpStatus.OK);
+        }
+        log.info("Получен запрос GET на получение страницы фильмов. Размер: {}, курсор: {}", limit.get(), after);
+        Page<Film> page = filmService.getFilms(limit.get(), after, toFieldSet(fields));
+        log.info("Вывод страницы фильмов. Размер страницы: {}", page.getItems().size());
+        HttpHeaders headers = new HttpHeaders();
+        if (page.getNextCursor() != null) {
+            headers.add(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return new ResponseEntity<>(project(page.getItems(), fields), headers, HttpStatus.OK);
     }
 
     @GetMapping(value = "/{id}")
     @ResponseStatus(HttpStatus.OK)
-    public Film getFilmById(@PathVariable Long id) {
+    public Object getFilmById(@PathVariable Long id,
+                              @RequestParam(required = false) Optional<FilmField[]> fields) {
         log.info("Получен запрос GET на получение фильма по ID: {}", id);
-        Film film = filmService.getFilmById(id);
+        Film film = filmService.getFilmById(id, toFieldSet(fields));
         log.info("Вывод фильма с Id: {}", id);
-        return film;
+        return fields.isEmpty() ? film : project(film, fields.get());
     }
 
     @PostMapping
@@ -70,63 +100,152 @@ public class FilmController {
     }
 
     @PutMapping("/{id}/like/{userId}")
-    @ResponseStatus(HttpStatus.OK)
-    public Film addLike(@PathVariable(value = "id") Long filmId,
-                        @PathVariable(value = "userId") Long userId) {
+    public ResponseEntity<?> addLike(@PathVariable(value = "id") Long filmId,
+                                     @PathVariable(value = "userId") Long userId,
+                                     @RequestParam(defaultValue = "full") LikeResponse response) {
         log.info("Получен запрос PUT на добавление лайка. Id фильма: {}, Id пользователя: {}", filmId, userId);
-        Film film = filmService.createLike(filmId, userId);
+        ResponseEntity<?> result;
+        switch (response) {
+            case compact:
+                result = ResponseEntity.ok(filmService.likeFilm(filmId, userId));
+                break;
+            case none:
+                filmService.likeFilm(filmId, userId);
+                result = ResponseEntity.noContent().build();
+                break;
+            default:
+                result = ResponseEntity.ok(filmService.createLike(filmId, userId));
+        }
         log.info("Лайк успешно поставлен! Id фильма: {} ,Id пользователя: {}", filmId, userId);
-        return film;
+        return result;
     }
 
     @DeleteMapping("/{id}/like/{userId}")
-    @ResponseStatus(HttpStatus.OK)
-    public Film removeLike(@PathVariable(value = "id") Long filmId,
-                           @PathVariable(value = "userId") Long userId) {
+    public ResponseEntity<?> removeLike(@PathVariable(value = "id") Long filmId,
+                                        @PathVariable(value = "userId") Long userId,
+                                        @RequestParam(defaultValue = "full") LikeResponse response) {
         log.info("Получен запрос DELETE на удаление лайка");
-        Film film = filmService.removeLike(filmId, userId);
+        ResponseEntity<?> result;
+        switch (response) {
+            case compact:
+                result = ResponseEntity.ok(filmService.unlikeFilm(filmId, userId));
+                break;
+            case none:
+                filmService.unlikeFilm(filmId, userId);
+                result = ResponseEntity.noContent().build();
+                break;
+            default:
+                result = ResponseEntity.ok(filmService.removeLike(filmId, userId));
+        }
         log.info("Лайк пользователя {} успешно удалён!", userId);
-        return film;
+        return result;
     }
 
     @GetMapping("/popular")
     @ResponseStatus(HttpStatus.OK)
-    public Collection<Film> getMostPopularsFilms(@RequestParam(defaultValue = "10") Integer count,
-                                                 @RequestParam(required = false) Optional<Long> genreId,
-                                                 @RequestParam(required = false) Optional<Integer> year) {
-        log.info("Получен запрос GET на получение самых популярных фильмов!");
-        Collection<Film> films = filmService.getMostPopularsFilms(count, genreId, year);
+    public Collection<?> getMostPopularsFilms(@RequestParam(defaultValue = "10") Integer count,
+                                              @RequestParam(required = false) Optional<Long> genreId,
+                                              @RequestParam(required = false) Optional<Integer> year,
+                                              @RequestParam(defaultValue = "likes") PopularSort sort,
+                                              @RequestParam(required = false) Optional<FilmField[]> fields) {
+        log.info("Получен запрос GET на получение самых популярных фильмов! Порядок: {}", sort);
+        Collection<Film> films = filmService.getMostPopularsFilms(count, genreId, year, sort, toFieldSet(fields));
         log.info("Вывод {} популярных фильмов", count);
-        return films;
+        return project(films, fields);
+    }
+
+    @GetMapping("/trending")
+    @ResponseStatus(HttpStatus.OK)
+    public Collection<?> getTrendingFilms(@RequestParam(defaultValue = "24h") String window,
+                                          @RequestParam(defaultValue = "10") Integer count,
+                                          @RequestParam(required = false) Optional<FilmField[]> fields) {
+        log.info("Получен запрос GET на получение трендовых фильмов за {}", window);
+        Collection<Film> films = filmService.getTrendingFilms(window, count, toFieldSet(fields));
+        log.info("Вывод {} трендовых фильмов", films.size());
+        return project(films, fields);
     }
 
     @GetMapping("/director/{directorId}")
     @ResponseStatus(HttpStatus.OK)
-    public Collection<Film> getFilmsByDirector(@PathVariable Long directorId,
-                                               @RequestParam(required = false) Optional<SortParam[]> sortBy) {
+    public Collection<?> getFilmsByDirector(@PathVariable Long directorId,
+                                            @RequestParam(required = false) Optional<SortParam[]> sortBy,
+                                            @RequestParam(required = false) Optional<FilmField[]> fields) {
         log.info("Получен запрос GET на получение фильмов по режисёру!");
-        Collection<Film> films = filmService.getDirectorFilmsSorted(directorId, sortBy);
+        Collection<Film> films = filmService.getDirectorFilmsSorted(directorId, sortBy, toFieldSet(fields));
         log.info("Вывод {} фильмов данного режисёра", films.size());
-        return films;
+        return project(films, fields);
     }
 
     @GetMapping("/common")
     @ResponseStatus(HttpStatus.OK)
-    public Collection<Film> getCommonFilms(@RequestParam Long userId,
-                                           @RequestParam Long friendId) {
+    public Collection<?> getCommonFilms(@RequestParam Long userId,
+                                        @RequestParam Long friendId,
+                                        @RequestParam(required = false) Optional<FilmField[]> fields) {
         log.info("Получен запрос GET для общих фильмов с другом по популярности");
-        Collection<Film> films = filmService.getCommonFilms(userId, friendId);
+        Collection<Film> films = filmService.getCommonFilms(userId, friendId, toFieldSet(fields));
         log.info("Вывод {} общих фильмов ", films.size());
-        return films;
+        return project(films, fields);
     }
 
     @GetMapping("/search")
     @ResponseStatus(HttpStatus.OK)
-    public Collection<Film> searchFilmByParameter(@RequestParam(name = "query") String query,
-                                                  @RequestParam(name = "by") FilmParameter[] filmSearchParameter) {
+    public Collection<?> searchFilmByParameter(@RequestParam(name = "query") String query,
+                                               @RequestParam(name = "by") FilmParameter[] filmSearchParameter,
+                                               @RequestParam(required = false) Optional<FilmField[]> fields) {
         log.info("Получен GET запрос на поиск: {}", filmSearchParameter);
-        Collection<Film> films = filmService.searchFilmByParameter(query.toLowerCase(), filmSearchParameter);
+        Collection<Film> films = filmService.searchFilmByParameter(query.toLowerCase(), filmSearchParameter,
+                toFieldSet(fields));
         log.info("Вывод {} найденых фильмов ", films.size());
-        return films;
+        return project(films, fields);
+    }
+
+    @GetMapping("/suggest")
+    @ResponseStatus(HttpStatus.OK)
+    public List<FilmSuggestion> suggestFilms(@RequestParam String prefix,
+                                             @RequestParam(defaultValue = "10") Integer limit) {
+        log.info("Получен запрос GET на подсказки по префиксу: {}", prefix);
+        List<FilmSuggestion> suggestions = filmService.suggestFilms(prefix, limit);
+        log.info("Вывод {} подсказок", suggestions.size());
+        return suggestions;
+    }
+
+    @GetMapping("/{id}/liked-by-friends")
+    @ResponseStatus(HttpStatus.OK)
+    public List<UserSummary> getFriendsWhoLiked(@PathVariable(value = "id") Long filmId,
+                                                @RequestParam Long userId,
+                                                @RequestParam(defaultValue = "20") Integer limit) {
+        log.info("Получен запрос GET на друзей пользователя {}, лайкнувших фильм {}", userId, filmId);
+        List<UserSummary> friends = filmService.getFriendsWhoLiked(filmId, userId, limit);
+        log.info("Вывод {} друзей, лайкнувших фильм", friends.size());
+        return friends;
+    }
+
+    private Set<FilmField> toFieldSet(Optional<FilmField[]> fields) {
+        return fields.<Set<FilmField>>map(values -> EnumSet.copyOf(Arrays.asList(values)))
+                .orElseGet(FilmField::defaults);
+    }
+
+    /**
+     * Оставляет в ответе только запрошенные поля фильма. Без fields фильмы отдаются целиком.
+     */
+    private Collection<?> project(Collection<Film> films, Optional<FilmField[]> fields) {
+        if (fields.isEmpty()) {
+            return films;
+        }
+        return films.stream()
+                .map(film -> project(film, fields.get()))
+                .collect(Collectors.toList());
+    }
+
+    private Map<String, Object> project(Film film, FilmField[] fields) {
+        Map<String, Object> values = objectMapper.convertValue(film, new TypeReference<LinkedHashMap<String, Object>>() {
+        });
+        Map<String, Object> projection = new LinkedHashMap<>();
+        for (FilmField field : fields) {
+            if (values.containsKey(field.name())) {
+                projection.put(field.name(), values.get(field.name()));
+            }
+        }
+        return projection;
     }
 }
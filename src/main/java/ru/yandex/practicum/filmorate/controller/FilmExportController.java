@@ -0,0 +1,109 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import ru.yandex.practicum.filmorate.exceptions.ServiceUnavailableException;
+import ru.yandex.practicum.filmorate.service.FilmService;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Выгрузка каталога фильмов в NDJSON: по одному фильму в строке.
+ * <p>
+ * Ответ пишется в отдельном потоке с таймаутом filmorate.films.export.timeout-ms, который действует только
+ * на этот запрос. Одновременно идёт не больше filmorate.films.export.max-concurrent выгрузок,
+ * следующие получают 503 и могут повторить запрос позже. По таймауту выгрузка останавливается на следующем
+ * фильме, а место освобождается, только когда поток выгрузки действительно завершился (или если он так и не
+ * запустился).
+ */
+@Slf4j
+@RestController
+@RequestMapping("/films")
+public class FilmExportController {
+    public static final String NDJSON = "application/x-ndjson";
+
+    private final FilmService filmService;
+    private final ObjectWriter writer;
+    private final long timeoutMs;
+    private final Semaphore permits;
+
+    @Autowired
+    public FilmExportController(FilmService filmService, ObjectMapper objectMapper,
+                                @Value("${filmorate.films.export.timeout-ms:600000}") long timeoutMs,
+                                @Value("${filmorate.films.export.max-concurrent:4}") int maxConcurrent) {
+        this.filmService = filmService;
+        this.writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.timeoutMs = timeoutMs;
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    @GetMapping(value = "/export", produces = NDJSON)
+    @ResponseStatus(HttpStatus.OK)
+    public WebAsyncTask<Void> exportFilms(HttpServletResponse response) {
+        log.info("Получен запрос GET на выгрузку каталога фильмов");
+        if (!permits.tryAcquire()) {
+            throw new ServiceUnavailableException("Слишком много одновременных выгрузок каталога, повторите позже");
+        }
+        AtomicBoolean cancelled = new AtomicBoolean();
+        AtomicBoolean started = new AtomicBoolean();
+        response.setContentType(NDJSON);
+        WebAsyncTask<Void> task = new WebAsyncTask<>(timeoutMs, () -> {
+            if (!started.compareAndSet(false, true)) {
+                return null;
+            }
+            try {
+                OutputStream out = response.getOutputStream();
+                filmService.exportFilms(film -> {
+                    if (cancelled.get()) {
+                        throw new CancellationException("Выгрузка каталога фильмов отменена");
+                    }
+                    try {
+                        writer.writeValue(out, film);
+                        out.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                out.flush();
+                log.info("Выгрузка каталога фильмов завершена");
+            } catch (CancellationException e) {
+                log.info("Выгрузка каталога фильмов остановлена после таймаута");
+            } finally {
+                permits.release();
+            }
+            return null;
+        });
+        task.onTimeout(() -> {
+            cancelled.set(true);
+            log.warn("Выгрузка каталога фильмов прервана по таймауту {} мс", timeoutMs);
+            return null;
+        });
+        task.onCompletion(() -> {
+            // По таймауту задача может быть отменена до запуска, тогда место освобождается здесь.
+            if (started.compareAndSet(false, true)) {
+                permits.release();
+            }
+        });
+        return task;
+    }
+}
@@ -2,9 +2,11 @@ package ru.yandex.practicum.filmorate.controller;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.Review;
 import ru.yandex.practicum.filmorate.service.ReviewService;
 
@@ -56,20 +58,33 @@ public class ReviewController {
     }
 
     @GetMapping
-    @ResponseStatus(HttpStatus.OK)
-    public Collection<Review> getReviewsByFilmIdAndCount(@RequestParam(required = false) Optional<Long> filmId,
-                                                         @RequestParam(defaultValue = "10") Integer count) {
+    public ResponseEntity<Collection<Review>> getReviewsByFilmIdAndCount(
+            @RequestParam(required = false) Optional<Long> filmId,
+            @RequestParam(defaultValue = "10") Integer count,
+            @RequestParam(required = false) Optional<Integer> limit,
+            @RequestParam(required = false) Optional<String> after) {
+        if (limit.isPresent()) {
+            log.info("Получен запрос GET на страницу отзывов. Фильм: {}, размер: {}, курсор: {}", filmId, limit.get(),
+                    after);
+            Page<Review> page = reviewService.getReviews(filmId, limit.get(), after);
+            log.info("Вывод страницы отзывов. Размер страницы: {}", page.getItems().size());
+            HttpHeaders headers = new HttpHeaders();
+            if (page.getNextCursor() != null) {
+                headers.add(FilmController.NEXT_CURSOR_HEADER, page.getNextCursor());
+            }
+            return new ResponseEntity<>(page.getItems(), headers, HttpStatus.OK);
+        }
         if (filmId.isEmpty()) {
             log.info("Получен запрос GET на получение отзывов ко всем фильмам. Кол-во отзывов: {}", count);
             Collection<Review> reviews = reviewService.getAllReviews(count);
             log.info("Вывод {} отзывов к фильмам.", reviews.size());
-            return reviews;
+            return new ResponseEntity<>(reviews, HttpStatus.OK);
         } else {
             log.info("Получен запрос GET на получение отзыва к фильму с ID: {}. Кол-во отзывов: {}", filmId,
                     count);
             Collection<Review> reviews = reviewService.getReviewByFilmId(filmId.get(), count);
             log.info("Вывод отзывов к фильму с ID: {}", filmId);
-            return reviews;
+            return new ResponseEntity<>(reviews, HttpStatus.OK);
         }
     }
 
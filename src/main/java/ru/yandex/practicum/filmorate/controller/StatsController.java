@@ -0,0 +1,57 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import ru.yandex.practicum.filmorate.cache.FilmCache;
+import ru.yandex.practicum.filmorate.cache.ReviewTopCache;
+import ru.yandex.practicum.filmorate.index.FriendGraph;
+import ru.yandex.practicum.filmorate.ingestion.LikeWriter;
+
+@Slf4j
+@RestController
+@RequestMapping("/stats")
+public class StatsController {
+    private final FilmCache filmCache;
+    private final LikeWriter likeWriter;
+    private final FriendGraph friendGraph;
+    private final ReviewTopCache reviewTopCache;
+
+    @Autowired
+    public StatsController(FilmCache filmCache, LikeWriter likeWriter, FriendGraph friendGraph,
+                           ReviewTopCache reviewTopCache) {
+        this.filmCache = filmCache;
+        this.likeWriter = likeWriter;
+        this.friendGraph = friendGraph;
+        this.reviewTopCache = reviewTopCache;
+    }
+
+    @GetMapping("/film-cache")
+    @ResponseStatus(HttpStatus.OK)
+    public FilmCache.Stats getFilmCacheStats() {
+        log.info("Получен запрос GET на получение статистики кэша фильмов");
+        return filmCache.getStats();
+    }
+
+    @GetMapping("/like-queue")
+    @ResponseStatus(HttpStatus.OK)
+    public LikeWriter.Stats getLikeQueueStats() {
+        log.info("Получен запрос GET на получение статистики очереди лайков");
+        return likeWriter.getStats();
+    }
+
+    @GetMapping("/friend-suggestions")
+    @ResponseStatus(HttpStatus.OK)
+    public FriendGraph.Stats getFriendSuggestionsStats() {
+        log.info("Получен запрос GET на получение статистики кэша рекомендаций друзей");
+        return friendGraph.getStats();
+    }
+
+    @GetMapping("/review-cache")
+    @ResponseStatus(HttpStatus.OK)
+    public ReviewTopCache.Stats getReviewCacheStats() {
+        log.info("Получен запрос GET на получение статистики кэша лучших отзывов");
+        return reviewTopCache.getStats();
+    }
+}
@@ -2,15 +2,18 @@ package ru.yandex.practicum.filmorate.controller;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.model.UserFeed;
 import ru.yandex.practicum.filmorate.service.UserService;
 
 import javax.validation.Valid;
 import java.util.Collection;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/users")
@@ -66,12 +69,20 @@ public class UserController {
     }
 
     @GetMapping("/{id}/friends")
-    @ResponseStatus(HttpStatus.OK)
-    public Collection<User> getUserFriends(@PathVariable Long id) {
-        log.info("Получен запрос GET на вывод всех друзей пользователя");
-        Collection<User> friendId = userService.getFriends(id);
-        log.info("Вывод друзей пользователя с Id: {}. Id друзей: {}", id, friendId);
-        return friendId;
+    public ResponseEntity<Collection<User>> getUserFriends(@PathVariable Long id,
+                                                           @RequestParam(required = false) Optional<Integer> limit,
+                                                           @RequestParam(required = false) Optional<String> after,
+                                                           @RequestParam(defaultValue = "true") boolean friendsIds) {
+        if (limit.isEmpty()) {
+            log.info("Получен запрос GET на вывод всех друзей пользователя");
+            Collection<User> friendId = userService.getFriends(id, friendsIds);
+            log.info("Вывод друзей пользователя с Id: {}. Id друзей: {}", id, friendId);
+            return new ResponseEntity<>(friendId, HttpStatus.OK);
+        }
+        log.info("Получен запрос GET на страницу друзей пользователя {}. Размер: {}, курсор: {}", id, limit.get(), after);
+        Page<User> page = userService.getFriends(id, limit.get(), after, friendsIds);
+        log.info("Вывод страницы друзей пользователя с Id: {}. Размер страницы: {}", id, page.getItems().size());
+        return toResponse(page);
     }
 
     @PutMapping("/{id}/friends/{friendId}")
@@ -99,14 +110,43 @@ public class UserController {
     }
 
     @GetMapping("/{id}/friends/common/{otherId}")
+    public ResponseEntity<Collection<User>> getCommonFriends(@PathVariable(value = "id") Long userId,
+                                                             @PathVariable(value = "otherId") Long friendId,
+                                                             @RequestParam(required = false) Optional<Integer> limit,
+                                                             @RequestParam(required = false) Optional<String> after,
+                                                             @RequestParam(defaultValue = "true") boolean friendsIds) {
+        if (limit.isEmpty()) {
+            log.info("Получен запрос GET на получение общих друзей пользователей: {} и {}", userId, friendId);
+            Collection<User> commonFriends = userService.getCommonFriends(userId, friendId, friendsIds);
+            log.info("Вывод общих друзей пользователя с Id: {} и Id: {}", userId, friendId);
+            log.info("Общие друзья: {}", commonFriends);
+            return new ResponseEntity<>(commonFriends, HttpStatus.OK);
+        }
+        log.info("Получен запрос GET на страницу общих друзей пользователей: {} и {}. Размер: {}, курсор: {}",
+                userId, friendId, limit.get(), after);
+        Page<User> page = userService.getCommonFriends(userId, friendId, limit.get(), after, friendsIds);
+        log.info("Вывод страницы общих друзей. Размер страницы: {}", page.getItems().size());
+        return toResponse(page);
+    }
+
+    @GetMapping("/{id}/friends/suggestions")
+    @ResponseStatus(HttpStatus.OK)
+    public Collection<User> getFriendSuggestions(@PathVariable(value = "id") Long userId,
+                                                 @RequestParam(defaultValue = "10") Integer limit) {
+        log.info("Получен запрос GET на рекомендации друзей для пользователя: {}", userId);
+        Collection<User> suggestions = userService.getFriendSuggestions(userId, limit);
+        log.info("Вывод {} рекомендаций друзей для пользователя с Id: {}", suggestions.size(), userId);
+        return suggestions;
+    }
+
+    @GetMapping("/{id}/path/{otherId}")
     @ResponseStatus(HttpStatus.OK)
-    public Collection<User> getCommonFriends(@PathVariable(value = "id") Long userId,
-                                             @PathVariable(value = "otherId") Long friendId) {
-        log.info("Получен запрос GET на получение общих друзей пользователей: {} и {}", userId, friendId);
-        Collection<User> commonFriends = userService.getCommonFriends(userId, friendId);
-        log.info("Вывод общих друзей пользователя с Id: {} и Id: {}", userId, friendId);
-        log.info("Общие друзья: {}", commonFriends);
-        return commonFriends;
+    public Collection<User> getFriendshipPath(@PathVariable(value = "id") Long userId,
+                                              @PathVariable(value = "otherId") Long otherId) {
+        log.info("Получен запрос GET на поиск цепочки друзей от пользователя {} до {}", userId, otherId);
+        Collection<User> path = userService.getFriendshipPath(userId, otherId);
+        log.info("Цепочка от пользователя {} до {} длиной {} шагов", userId, otherId, path.size() - 1);
+        return path;
     }
 
     @GetMapping("/{id}/feed")
@@ -117,4 +157,12 @@ public class UserController {
         log.info("Вывод общих истории действий пользователя с Id: {}", userId);
         return userFeed;
     }
+
+    private ResponseEntity<Collection<User>> toResponse(Page<User> page) {
+        HttpHeaders headers = new HttpHeaders();
+        if (page.getNextCursor() != null) {
+            headers.add(FilmController.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return new ResponseEntity<>(page.getItems(), headers, HttpStatus.OK);
+    }
 }
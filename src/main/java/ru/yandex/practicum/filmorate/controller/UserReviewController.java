@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.model.Review;
+import ru.yandex.practicum.filmorate.service.ReviewService;
+
+import java.util.Collection;
+import java.util.Optional;
+
+@Slf4j
+@RestController
+@RequestMapping("/users")
+public class UserReviewController {
+    private final ReviewService reviewService;
+
+    @Autowired
+    public UserReviewController(ReviewService reviewService) {
+        this.reviewService = reviewService;
+    }
+
+    @GetMapping("/{id}/reviews")
+    public ResponseEntity<Collection<Review>> getUserReviews(@PathVariable(value = "id") Long userId,
+                                                             @RequestParam(defaultValue = "20") Integer limit,
+                                                             @RequestParam(required = false) Optional<String> after) {
+        log.info("Получен запрос GET на отзывы пользователя {}. Размер: {}, курсор: {}", userId, limit, after);
+        Page<Review> page = reviewService.getReviewsByUser(userId, limit, after);
+        log.info("Вывод {} отзывов пользователя с ID: {}", page.getItems().size(), userId);
+        HttpHeaders headers = new HttpHeaders();
+        if (page.getNextCursor() != null) {
+            headers.add(FilmController.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return new ResponseEntity<>(page.getItems(), headers, HttpStatus.OK);
+    }
+}
@@ -0,0 +1,13 @@
+package ru.yandex.practicum.filmorate.event;
+
+import lombok.Value;
+import ru.yandex.practicum.filmorate.model.enums.Operation;
+
+/**
+ * Режиссёр добавлен, переименован или удалён.
+ */
+@Value
+public class DirectorEvent {
+    Long directorId;
+    Operation operation;
+}
@@ -0,0 +1,13 @@
+package ru.yandex.practicum.filmorate.event;
+
+import lombok.Value;
+import ru.yandex.practicum.filmorate.model.enums.Operation;
+
+/**
+ * Фильм добавлен, обновлён (вместе с жанрами и режиссёрами) или удалён.
+ */
+@Value
+public class FilmEvent {
+    Long filmId;
+    Operation operation;
+}
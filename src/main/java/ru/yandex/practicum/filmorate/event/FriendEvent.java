@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.event;
+
+import lombok.Value;
+import ru.yandex.practicum.filmorate.model.enums.Operation;
+
+/**
+ * Пользователь userId добавил friendId в друзья или удалил его из друзей. Дружба односторонняя.
+ */
+@Value
+public class FriendEvent {
+    Long userId;
+    Long friendId;
+    Operation operation;
+}
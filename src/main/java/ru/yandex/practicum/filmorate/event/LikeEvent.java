@@ -0,0 +1,18 @@
+package ru.yandex.practicum.filmorate.event;
+
+import lombok.Value;
+import ru.yandex.practicum.filmorate.model.enums.Operation;
+
+import java.time.Instant;
+
+/**
+ * Лайк фильма поставлен или снят. Публикуется только если таблица film_like действительно изменилась.
+ * likedAt — время, когда лайк был поставлен; при снятии это время снятого лайка, а не момент удаления.
+ */
+@Value
+public class LikeEvent {
+    Long filmId;
+    Long userId;
+    Operation operation;
+    Instant likedAt;
+}
@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.event;
+
+import lombok.Value;
+import ru.yandex.practicum.filmorate.model.enums.Operation;
+
+/**
+ * Отзыв к фильму добавлен, изменён (в том числе его полезность) или удалён.
+ */
+@Value
+public class ReviewEvent {
+    Long reviewId;
+    Long filmId;
+    Operation operation;
+}
@@ -0,0 +1,13 @@
+package ru.yandex.practicum.filmorate.event;
+
+import lombok.Value;
+import ru.yandex.practicum.filmorate.model.enums.Operation;
+
+/**
+ * Пользователь добавлен, обновлён или удалён. При обновлении его собственный список друзей очищается.
+ */
+@Value
+public class UserEvent {
+    Long userId;
+    Operation operation;
+}
@@ -0,0 +1,394 @@
+package ru.yandex.practicum.filmorate.index;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Сжатое множество идентификаторов от 0 до 2^32 - 1 в духе Roaring bitmap.
+ * Старшие 16 бит значения выбирают контейнер, младшие 16 бит хранятся в нём: пока значений в контейнере
+ * не больше 4096, это отсортированный массив char (2 байта на значение), дальше — битовая карта на 8 КБ.
+ * Пересечения считаются по контейнерам с совпадающими ключами, для двух битовых карт — словами по 64 бита.
+ * <p>
+ * Класс не потокобезопасен, синхронизация остаётся на владельце.
+ */
+class CompactBitmap {
+    private static final int ARRAY_LIMIT = 4096;
+    private static final long MAX_VALUE = 0xFFFF_FFFFL;
+
+    private char[] keys = new char[1];
+    private Container[] containers = new Container[1];
+    private int size;
+    private long cardinality;
+
+    boolean add(long value) {
+        char key = high(value);
+        char low = low(value);
+        int i = find(key);
+        if (i < 0) {
+            i = -i - 1;
+            insertContainer(i, key, new ArrayContainer());
+        }
+        Container container = containers[i];
+        if (container.contains(low)) {
+            return false;
+        }
+        containers[i] = container.add(low);
+        cardinality++;
+        return true;
+    }
+
+    boolean remove(long value) {
+        int i = find(high(value));
+        if (i < 0) {
+            return false;
+        }
+        char low = low(value);
+        Container container = containers[i];
+        if (!container.contains(low)) {
+            return false;
+        }
+        Container result = container.remove(low);
+        cardinality--;
+        if (result.cardinality() == 0) {
+            removeContainer(i);
+        } else {
+            containers[i] = result;
+        }
+        return true;
+    }
+
+    boolean contains(long value) {
+        int i = find(high(value));
+        return i >= 0 && containers[i].contains(low(value));
+    }
+
+    long cardinality() {
+        return cardinality;
+    }
+
+    boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    long andCardinality(CompactBitmap other) {
+        long result = 0;
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                result += containers[i++].andCardinality(other.containers[j++]);
+            }
+        }
+        return result;
+    }
+
+    void forEach(LongConsumer action) {
+        for (int i = 0; i < size; i++) {
+            containers[i].forEach(base(keys[i]), action);
+        }
+    }
+
+    void forEachAnd(CompactBitmap other, LongConsumer action) {
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                containers[i].forEachAnd(other.containers[j], base(keys[i]), action);
+                i++;
+                j++;
+            }
+        }
+    }
+
+    void forEachAndNot(CompactBitmap other, LongConsumer action) {
+        for (int i = 0; i < size; i++) {
+            int j = other.find(keys[i]);
+            if (j < 0) {
+                containers[i].forEach(base(keys[i]), action);
+            } else {
+                containers[i].forEachAndNot(other.containers[j], base(keys[i]), action);
+            }
+        }
+    }
+
+    private int find(char key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void insertContainer(int index, char key, Container container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = container;
+        size++;
+    }
+
+    private void removeContainer(int index) {
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+        containers[--size] = null;
+    }
+
+    private static char high(long value) {
+        if (value < 0 || value > MAX_VALUE) {
+            throw new IllegalArgumentException("Идентификатор вне допустимого диапазона: " + value);
+        }
+        return (char) (value >>> 16);
+    }
+
+    private static char low(long value) {
+        return (char) value;
+    }
+
+    private static long base(char key) {
+        return (long) key << 16;
+    }
+
+    private abstract static class Container {
+        abstract boolean contains(char value);
+
+        /**
+         * Добавляет отсутствующее значение и возвращает контейнер, который нужно хранить дальше.
+         */
+        abstract Container add(char value);
+
+        /**
+         * Удаляет присутствующее значение и возвращает контейнер, который нужно хранить дальше.
+         */
+        abstract Container remove(char value);
+
+        abstract int cardinality();
+
+        abstract int andCardinality(Container other);
+
+        abstract void forEach(long base, LongConsumer action);
+
+        abstract void forEachAnd(Container other, long base, LongConsumer action);
+
+        abstract void forEachAndNot(Container other, long base, LongConsumer action);
+    }
+
+    private static final class ArrayContainer extends Container {
+        private char[] values;
+        private int size;
+
+        ArrayContainer() {
+            this.values = new char[4];
+        }
+
+        ArrayContainer(char[] values, int size) {
+            this.values = values;
+            this.size = size;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, size, value) >= 0;
+        }
+
+        @Override
+        Container add(char value) {
+            if (size == ARRAY_LIMIT) {
+                return toBitmap().add(value);
+            }
+            int index = -Arrays.binarySearch(values, 0, size, value) - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.min(size * 2, ARRAY_LIMIT));
+            }
+            System.arraycopy(values, index, values, index + 1, size - index);
+            values[index] = value;
+            size++;
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            System.arraycopy(values, index + 1, values, index, size - index - 1);
+            size--;
+            return this;
+        }
+
+        @Override
+        int cardinality() {
+            return size;
+        }
+
+        @Override
+        int andCardinality(Container other) {
+            if (other instanceof ArrayContainer) {
+                ArrayContainer array = (ArrayContainer) other;
+                int result = 0;
+                int i = 0;
+                int j = 0;
+                while (i < size && j < array.size) {
+                    if (values[i] < array.values[j]) {
+                        i++;
+                    } else if (values[i] > array.values[j]) {
+                        j++;
+                    } else {
+                        result++;
+                        i++;
+                        j++;
+                    }
+                }
+                return result;
+            }
+            int result = 0;
+            for (int i = 0; i < size; i++) {
+                if (other.contains(values[i])) {
+                    result++;
+                }
+            }
+            return result;
+        }
+
+        @Override
+        void forEach(long base, LongConsumer action) {
+            for (int i = 0; i < size; i++) {
+                action.accept(base | values[i]);
+            }
+        }
+
+        @Override
+        void forEachAnd(Container other, long base, LongConsumer action) {
+            for (int i = 0; i < size; i++) {
+                if (other.contains(values[i])) {
+                    action.accept(base | values[i]);
+                }
+            }
+        }
+
+        @Override
+        void forEachAndNot(Container other, long base, LongConsumer action) {
+            for (int i = 0; i < size; i++) {
+                if (!other.contains(values[i])) {
+                    action.accept(base | values[i]);
+                }
+            }
+        }
+
+        private BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < size; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        private final long[] words = new long[1 << 10];
+        private int cardinality;
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        Container add(char value) {
+            words[value >>> 6] |= 1L << value;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            words[value >>> 6] &= ~(1L << value);
+            cardinality--;
+            return cardinality <= ARRAY_LIMIT ? toArray() : this;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        int andCardinality(Container other) {
+            if (other instanceof BitmapContainer) {
+                long[] otherWords = ((BitmapContainer) other).words;
+                int result = 0;
+                for (int i = 0; i < words.length; i++) {
+                    result += Long.bitCount(words[i] & otherWords[i]);
+                }
+                return result;
+            }
+            return other.andCardinality(this);
+        }
+
+        @Override
+        void forEach(long base, LongConsumer action) {
+            for (int i = 0; i < words.length; i++) {
+                forEachBit(words[i], base | ((long) i << 6), action);
+            }
+        }
+
+        @Override
+        void forEachAnd(Container other, long base, LongConsumer action) {
+            if (other instanceof BitmapContainer) {
+                long[] otherWords = ((BitmapContainer) other).words;
+                for (int i = 0; i < words.length; i++) {
+                    forEachBit(words[i] & otherWords[i], base | ((long) i << 6), action);
+                }
+            } else {
+                other.forEachAnd(this, base, action);
+            }
+        }
+
+        @Override
+        void forEachAndNot(Container other, long base, LongConsumer action) {
+            if (other instanceof BitmapContainer) {
+                long[] otherWords = ((BitmapContainer) other).words;
+                for (int i = 0; i < words.length; i++) {
+                    forEachBit(words[i] & ~otherWords[i], base | ((long) i << 6), action);
+                }
+            } else {
+                for (int i = 0; i < words.length; i++) {
+                    long word = words[i];
+                    while (word != 0) {
+                        int bit = Long.numberOfTrailingZeros(word);
+                        char value = (char) ((i << 6) | bit);
+                        if (!other.contains(value)) {
+                            action.accept(base | value);
+                        }
+                        word &= word - 1;
+                    }
+                }
+            }
+        }
+
+        private static void forEachBit(long word, long base, LongConsumer action) {
+            while (word != 0) {
+                action.accept(base | Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+
+        private ArrayContainer toArray() {
+            char[] values = new char[ARRAY_LIMIT];
+            int size = 0;
+            for (int i = 0; i < words.length; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    values[size++] = (char) ((i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values, size);
+        }
+    }
+}
@@ -0,0 +1,419 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.event.DirectorEvent;
+import ru.yandex.practicum.filmorate.event.FilmEvent;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSuggestion;
+import ru.yandex.practicum.filmorate.model.enums.FilmParameter;
+import ru.yandex.practicum.filmorate.model.enums.Operation;
+import ru.yandex.practicum.filmorate.storage.DirectorStorage;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Триграммный инвертированный индекс по названиям фильмов и именам режиссёров.
+ * Поиск пересекает списки фильмов по всем триграммам запроса, отсеивает ложные совпадения
+ * проверкой подстроки и сортирует результат по количеству лайков из {@link LikeIndex}.
+ * Запросы короче трёх символов проверяются перебором строк в памяти.
+ * <p>
+ * Для автодополнения хранится отсортированный словарь слов: кандидаты с нужным первым словом находятся
+ * бинарным поиском, а префикс из нескольких слов проверяется по самой строке. Если кандидатов не больше
+ * {@link #SUGGEST_SORT_LIMIT}, они сортируются по лайкам; иначе фильмы перебираются в порядке популярности
+ * из {@link PopularFilmsLeaderboard#forEachByLikes} до первых limit совпадений.
+ */
+@Slf4j
+@Component
+public class FilmSearchIndex {
+    private static final int GRAM = 3;
+    static final int SUGGEST_SORT_LIMIT = 1000;
+
+    private final FilmStorage filmStorage;
+    private final DirectorStorage directorStorage;
+    private final LikeIndex likeIndex;
+    private final PopularFilmsLeaderboard leaderboard;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TrigramIndex titles = new TrigramIndex();
+    private final TrigramIndex directorNames = new TrigramIndex();
+    private final Map<Long, Set<Long>> directorFilms = new HashMap<>();
+    private final Map<Long, Set<Long>> filmDirectors = new HashMap<>();
+    private final Map<Long, String> filmNames = new HashMap<>();
+
+    @Autowired
+    public FilmSearchIndex(@Qualifier("dbFilmStorage") FilmStorage filmStorage, DirectorStorage directorStorage,
+                           LikeIndex likeIndex, PopularFilmsLeaderboard leaderboard) {
+        this.filmStorage = filmStorage;
+        this.directorStorage = directorStorage;
+        this.likeIndex = likeIndex;
+        this.leaderboard = leaderboard;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Collection<Film> films = filmStorage.getAllFilms();
+        Collection<Director> directors = directorStorage.getAllDirectors();
+        Map<Long, Collection<Director>> links = directorStorage.getFilmsDirectors(
+                films.stream().map(Film::getId).collect(Collectors.toList()));
+
+        lock.writeLock().lock();
+        try {
+            titles.clear();
+            directorNames.clear();
+            directorFilms.clear();
+            filmDirectors.clear();
+            filmNames.clear();
+            for (Director director : directors) {
+                directorNames.put(director.getId(), director.getName());
+            }
+            for (Film film : films) {
+                titles.put(film.getId(), film.getName());
+                filmNames.put(film.getId(), film.getName());
+                linkDirectors(film.getId(), links.getOrDefault(film.getId(), List.of()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Поисковый индекс построен. Фильмов: {}, режиссёров: {}", films.size(), directors.size());
+    }
+
+    /**
+     * Возвращает ID фильмов, у которых название или имя режиссёра содержит query, в порядке популярности.
+     */
+    public List<Long> search(String query, FilmParameter[] searchBy) {
+        String needle = normalize(query);
+        Set<Long> found = new HashSet<>();
+        lock.readLock().lock();
+        try {
+            for (FilmParameter parameter : searchBy) {
+                switch (parameter) {
+                    case title:
+                        found.addAll(titles.find(needle));
+                        break;
+                    case director:
+                        for (Long directorId : directorNames.find(needle)) {
+                            found.addAll(directorFilms.getOrDefault(directorId, Set.of()));
+                        }
+                        break;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return found.stream()
+                .sorted(Comparator.comparingLong(likeIndex::getLikesAmount).reversed()
+                        .thenComparing(Comparator.naturalOrder()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Возвращает не больше limit самых популярных фильмов, у которых слово в названии
+     * или в имени режиссёра начинается с prefix.
+     */
+    public List<FilmSuggestion> suggest(String prefix, int limit) {
+        String needle = normalize(prefix).strip();
+        if (needle.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Set<Long> found = new HashSet<>();
+            List<Long> ids;
+            if (collectPrefix(needle, found)) {
+                ids = found.stream()
+                        .sorted(Comparator.comparingLong(likeIndex::getLikesAmount).reversed()
+                                .thenComparing(Comparator.naturalOrder()))
+                        .limit(limit)
+                        .collect(Collectors.toList());
+            } else {
+                List<Long> top = new ArrayList<>();
+                leaderboard.forEachByLikes(filmId -> {
+                    if (matchesPrefix(filmId, needle)) {
+                        top.add(filmId);
+                    }
+                    return top.size() < limit;
+                });
+                ids = top;
+            }
+            return ids.stream()
+                    .map(id -> new FilmSuggestion(id, filmNames.get(id)))
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFilm(FilmEvent event) {
+        Long filmId = event.getFilmId();
+        Film film = null;
+        Collection<Director> directors = List.of();
+        if (event.getOperation() != Operation.REMOVE) {
+            try {
+                film = filmStorage.getFilmById(filmId);
+            } catch (EmptyResultDataAccessException e) {
+                film = null;
+            }
+            if (film != null) {
+                directors = directorStorage.getFilmsDirector(filmId);
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            titles.remove(filmId);
+            filmNames.remove(filmId);
+            unlinkDirectors(filmId);
+            if (film != null) {
+                titles.put(filmId, film.getName());
+                filmNames.put(filmId, film.getName());
+                linkDirectors(filmId, directors);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDirector(DirectorEvent event) {
+        Long directorId = event.getDirectorId();
+        Director director = null;
+        if (event.getOperation() != Operation.REMOVE) {
+            try {
+                director = directorStorage.getDirectorById(directorId);
+            } catch (IllegalArgumentException e) {
+                director = null;
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            directorNames.remove(directorId);
+            if (director != null) {
+                directorNames.put(directorId, director.getName());
+            } else {
+                for (Long filmId : directorFilms.getOrDefault(directorId, Set.of())) {
+                    filmDirectors.get(filmId).remove(directorId);
+                }
+                directorFilms.remove(directorId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Собирает фильмы с префиксом в found. Возвращает false, если их больше {@link #SUGGEST_SORT_LIMIT}.
+     */
+    private boolean collectPrefix(String prefix, Set<Long> found) {
+        if (!titles.collectPrefix(prefix, found, SUGGEST_SORT_LIMIT)) {
+            return false;
+        }
+        Set<Long> directors = new HashSet<>();
+        directorNames.collectPrefix(prefix, directors, Integer.MAX_VALUE);
+        for (Long directorId : directors) {
+            found.addAll(directorFilms.getOrDefault(directorId, Set.of()));
+            if (found.size() > SUGGEST_SORT_LIMIT) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean matchesPrefix(long filmId, String prefix) {
+        if (titles.hasPrefix(filmId, prefix)) {
+            return true;
+        }
+        for (Long directorId : filmDirectors.getOrDefault(filmId, Set.of())) {
+            if (directorNames.hasPrefix(directorId, prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void linkDirectors(Long filmId, Collection<Director> directors) {
+        for (Director director : directors) {
+            filmDirectors.computeIfAbsent(filmId, id -> new HashSet<>()).add(director.getId());
+            directorFilms.computeIfAbsent(director.getId(), id -> new HashSet<>()).add(filmId);
+        }
+    }
+
+    private void unlinkDirectors(Long filmId) {
+        Set<Long> directors = filmDirectors.remove(filmId);
+        if (directors == null) {
+            return;
+        }
+        for (Long directorId : directors) {
+            Set<Long> films = directorFilms.get(directorId);
+            films.remove(filmId);
+            if (films.isEmpty()) {
+                directorFilms.remove(directorId);
+            }
+        }
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> trigrams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static boolean isWordStart(String text, int i) {
+        return Character.isLetterOrDigit(text.charAt(i)) && (i == 0 || !Character.isLetterOrDigit(text.charAt(i - 1)));
+    }
+
+    /**
+     * Слова строки: "the godfather" даёт "the" и "godfather".
+     */
+    private static Set<String> words(String text) {
+        Set<String> words = new HashSet<>();
+        int i = 0;
+        while (i < text.length()) {
+            if (!Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+                continue;
+            }
+            int end = wordEnd(text, i);
+            words.add(text.substring(i, end));
+            i = end;
+        }
+        return words;
+    }
+
+    private static int wordEnd(String text, int start) {
+        int end = start;
+        while (end < text.length() && Character.isLetterOrDigit(text.charAt(end))) {
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * Строки по ID, отсортированные списки ID для каждой триграммы и словарь слов для поиска по префиксу.
+     */
+    private static class TrigramIndex {
+        private final Map<Long, String> texts = new HashMap<>();
+        private final Map<String, NavigableSet<Long>> postings = new HashMap<>();
+        private final NavigableMap<String, Set<Long>> words = new TreeMap<>();
+
+        void put(Long id, String text) {
+            String normalized = normalize(text);
+            texts.put(id, normalized);
+            for (String gram : trigrams(normalized)) {
+                postings.computeIfAbsent(gram, g -> new TreeSet<>()).add(id);
+            }
+            for (String word : words(normalized)) {
+                words.computeIfAbsent(word, w -> new HashSet<>()).add(id);
+            }
+        }
+
+        void remove(Long id) {
+            String text = texts.remove(id);
+            if (text == null) {
+                return;
+            }
+            for (String gram : trigrams(text)) {
+                NavigableSet<Long> ids = postings.get(gram);
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+            for (String word : words(text)) {
+                Set<Long> ids = words.get(word);
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    words.remove(word);
+                }
+            }
+        }
+
+        void clear() {
+            texts.clear();
+            postings.clear();
+            words.clear();
+        }
+
+        /**
+         * Добавляет в found строки, в которых с начала какого-то слова идёт prefix.
+         * Останавливается и возвращает false, как только в found становится больше max элементов.
+         */
+        boolean collectPrefix(String prefix, Set<Long> found, int max) {
+            if (!Character.isLetterOrDigit(prefix.charAt(0))) {
+                return true;
+            }
+            String firstWord = prefix.substring(0, wordEnd(prefix, 0));
+            boolean singleWord = firstWord.length() == prefix.length();
+            Map<String, Set<Long>> range = singleWord
+                    ? words.subMap(prefix, true, prefix + Character.MAX_VALUE, false)
+                    : words.subMap(firstWord, true, firstWord, true);
+            for (Set<Long> ids : range.values()) {
+                for (Long id : ids) {
+                    if ((singleWord || hasPrefix(id, prefix)) && found.add(id) && found.size() > max) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        boolean hasPrefix(long id, String prefix) {
+            String text = texts.get(id);
+            if (text == null) {
+                return false;
+            }
+            for (int i = text.indexOf(prefix); i >= 0; i = text.indexOf(prefix, i + 1)) {
+                if (isWordStart(text, i)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        List<Long> find(String needle) {
+            if (needle.length() < GRAM) {
+                return texts.entrySet().stream()
+                        .filter(entry -> entry.getValue().contains(needle))
+                        .map(Map.Entry::getKey)
+                        .collect(Collectors.toList());
+            }
+            List<NavigableSet<Long>> lists = new ArrayList<>();
+            for (String gram : trigrams(needle)) {
+                NavigableSet<Long> ids = postings.get(gram);
+                if (ids == null) {
+                    return List.of();
+                }
+                lists.add(ids);
+            }
+            lists.sort(Comparator.comparingInt(Set::size));
+            List<Long> result = new ArrayList<>();
+            for (Long id : lists.get(0)) {
+                boolean inAll = true;
+                for (int i = 1; i < lists.size() && inAll; i++) {
+                    inAll = lists.get(i).contains(id);
+                }
+                if (inAll && texts.get(id).contains(needle)) {
+                    result.add(id);
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,490 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.event.FriendEvent;
+import ru.yandex.practicum.filmorate.event.UserEvent;
+import ru.yandex.practicum.filmorate.model.enums.Operation;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Граф дружбы в памяти. Для каждого пользователя хранится отсортированный массив ID друзей
+ * и отсортированный массив ID тех, кто добавил его в друзья, — в {@link LongKeyMap} без упаковки ключей.
+ * Общие друзья находятся слиянием двух отсортированных массивов за линейное время.
+ * Граф строится из friendship при старте и обновляется после коммита по событиям дружбы и пользователей.
+ * <p>
+ * Рекомендации друзей — друзья друзей, ранжированные по числу общих друзей. Обход двух шагов ограничен
+ * filmorate.friends.suggestions.max-visits рёбрами, результат кэшируется по пользователю (LRU).
+ * Рекомендации пользователя зависят от его друзей и их друзей, поэтому изменение дружбы userId
+ * сбрасывает кэш самого userId и всех, у кого он в друзьях. Сброс делается под той же блокировкой записи,
+ * что и изменение графа, а расчёт с сохранением в кэш — под блокировкой чтения, так что устаревший результат
+ * в кэш не попадёт.
+ * <p>
+ * Путь между пользователями ищется двусторонним поиском в ширину: вперёд по друзьям, назад по тем,
+ * кто добавил в друзья, каждый раз расширяется меньший фронт. Поиск ограничен числом шагов
+ * (filmorate.friends.path.max-hops) и числом просмотренных рёбер (filmorate.friends.path.max-visits).
+ */
+@Slf4j
+@Component
+public class FriendGraph {
+    public static final int MAX_SUGGESTIONS = 100;
+    private static final long[] EMPTY = new long[0];
+
+    private final UserStorage userStorage;
+    private final int suggestionsCacheSize;
+    private final int maxVisits;
+    private final int pathMaxHops;
+    private final int pathMaxVisits;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private LongKeyMap<long[]> friends = new LongKeyMap<>();
+    private LongKeyMap<long[]> followers = new LongKeyMap<>();
+    private final Map<Long, long[]> suggestions;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @Autowired
+    public FriendGraph(@Qualifier("dbUserStorage") UserStorage userStorage,
+                       @Value("${filmorate.friends.suggestions.cache-size:1000}") int suggestionsCacheSize,
+                       @Value("${filmorate.friends.suggestions.max-visits:100000}") int maxVisits,
+                       @Value("${filmorate.friends.path.max-hops:6}") int pathMaxHops,
+                       @Value("${filmorate.friends.path.max-visits:200000}") int pathMaxVisits) {
+        this.userStorage = userStorage;
+        this.suggestionsCacheSize = suggestionsCacheSize;
+        this.maxVisits = maxVisits;
+        this.pathMaxHops = pathMaxHops;
+        this.pathMaxVisits = pathMaxVisits;
+        this.suggestions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, long[]> eldest) {
+                return size() > suggestionsCacheSize;
+            }
+        };
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Map<Long, EdgeBuffer> out = new HashMap<>();
+        Map<Long, EdgeBuffer> in = new HashMap<>();
+        long[] edges = {0};
+        userStorage.exportFriendships((userId, friendId) -> {
+            out.computeIfAbsent(userId, id -> new EdgeBuffer()).add(friendId);
+            in.computeIfAbsent(friendId, id -> new EdgeBuffer()).add(userId);
+            edges[0]++;
+        });
+        LongKeyMap<long[]> newFriends = toAdjacency(out);
+        LongKeyMap<long[]> newFollowers = toAdjacency(in);
+        lock.writeLock().lock();
+        try {
+            friends = newFriends;
+            followers = newFollowers;
+            clearSuggestions();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Граф дружбы построен. Пользователей с друзьями: {}, связей: {}", out.size(), edges[0]);
+    }
+
+    /**
+     * ID друзей пользователя по возрастанию.
+     */
+    public long[] getFriends(long userId) {
+        lock.readLock().lock();
+        try {
+            return friends.get(userId) == null ? EMPTY : friends.get(userId).clone();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * ID пользователей, которые добавили userId в друзья, по возрастанию.
+     */
+    public long[] getFollowers(long userId) {
+        lock.readLock().lock();
+        try {
+            return followers.get(userId) == null ? EMPTY : followers.get(userId).clone();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isFriend(long userId, long friendId) {
+        lock.readLock().lock();
+        try {
+            long[] ids = friends.get(userId);
+            return ids != null && Arrays.binarySearch(ids, friendId) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * ID общих друзей двух пользователей по возрастанию.
+     */
+    public long[] getCommonFriends(long userId, long otherUserId) {
+        lock.readLock().lock();
+        try {
+            long[] first = friends.get(userId);
+            long[] second = friends.get(otherUserId);
+            if (first == null || second == null) {
+                return EMPTY;
+            }
+            long[] common = new long[Math.min(first.length, second.length)];
+            int size = 0;
+            int i = 0;
+            int j = 0;
+            while (i < first.length && j < second.length) {
+                if (first[i] < second[j]) {
+                    i++;
+                } else if (first[i] > second[j]) {
+                    j++;
+                } else {
+                    common[size++] = first[i];
+                    i++;
+                    j++;
+                }
+            }
+            return Arrays.copyOf(common, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Не больше limit друзей друзей userId, которые ещё не у него в друзьях:
+     * по убыванию числа общих друзей, при равенстве — по возрастанию ID.
+     */
+    public long[] suggestFriends(long userId, int limit) {
+        long[] result;
+        lock.readLock().lock();
+        try {
+            synchronized (suggestions) {
+                result = suggestions.get(userId);
+            }
+            if (result == null) {
+                misses.incrementAndGet();
+                result = computeSuggestions(userId);
+                synchronized (suggestions) {
+                    suggestions.put(userId, result);
+                }
+            } else {
+                hits.incrementAndGet();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return Arrays.copyOf(result, Math.min(limit, result.length));
+    }
+
+    /**
+     * Кратчайшая цепочка друзей от userId до otherUserId включительно: каждый следующий — друг предыдущего.
+     * Пустой массив, если цепочки не длиннее max-hops нет или поиск исчерпал max-visits.
+     */
+    public long[] findPath(long userId, long otherUserId) {
+        if (userId == otherUserId) {
+            return new long[]{userId};
+        }
+        lock.readLock().lock();
+        try {
+            Search forward = new Search(userId, friends);
+            Search backward = new Search(otherUserId, followers);
+            int visits = 0;
+            for (int hops = 0; hops < pathMaxHops; hops++) {
+                Search side = forward.size <= backward.size ? forward : backward;
+                Search other = side == forward ? backward : forward;
+                if (side.size == 0) {
+                    return EMPTY;
+                }
+                long[] frontier = Arrays.copyOf(side.frontier, side.size);
+                side.size = 0;
+                for (long node : frontier) {
+                    long[] neighbours = side.adjacency.get(node);
+                    if (neighbours == null) {
+                        continue;
+                    }
+                    for (long next : neighbours) {
+                        if (++visits > pathMaxVisits) {
+                            log.debug("Поиск пути от {} до {} остановлен на {} рёбрах", userId, otherUserId, pathMaxVisits);
+                            return EMPTY;
+                        }
+                        if (!side.visit(next, node)) {
+                            continue;
+                        }
+                        if (other.visited.contains(next)) {
+                            return joinPath(forward, backward, next);
+                        }
+                    }
+                }
+            }
+            return EMPTY;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Stats getStats() {
+        int size;
+        synchronized (suggestions) {
+            size = suggestions.size();
+        }
+        return new Stats(size, suggestionsCacheSize, hits.get(), misses.get(), invalidations.get());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFriend(FriendEvent event) {
+        lock.writeLock().lock();
+        try {
+            invalidateSuggestions(event.getUserId());
+            if (event.getOperation() == Operation.ADD) {
+                insert(friends, event.getUserId(), event.getFriendId());
+                insert(followers, event.getFriendId(), event.getUserId());
+            } else if (event.getOperation() == Operation.REMOVE) {
+                delete(friends, event.getUserId(), event.getFriendId());
+                delete(followers, event.getFriendId(), event.getUserId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUser(UserEvent event) {
+        if (event.getOperation() == Operation.ADD) {
+            return;
+        }
+        long userId = event.getUserId();
+        lock.writeLock().lock();
+        try {
+            if (event.getOperation() == Operation.REMOVE) {
+                clearSuggestions();
+            } else {
+                invalidateSuggestions(userId);
+            }
+            long[] own = friends.remove(userId);
+            if (own != null) {
+                for (long friendId : own) {
+                    delete(followers, friendId, userId);
+                }
+            }
+            if (event.getOperation() == Operation.REMOVE) {
+                long[] incoming = followers.remove(userId);
+                if (incoming != null) {
+                    for (long followerId : incoming) {
+                        delete(friends, followerId, userId);
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private long[] computeSuggestions(long userId) {
+        long[] own = friends.get(userId);
+        if (own == null) {
+            return EMPTY;
+        }
+        LongKeyMap<int[]> mutual = new LongKeyMap<>();
+        List<Long> candidates = new ArrayList<>();
+        int visits = 0;
+        traversal:
+        for (long friendId : own) {
+            long[] next = friends.get(friendId);
+            if (next == null) {
+                continue;
+            }
+            for (long candidate : next) {
+                if (++visits > maxVisits) {
+                    log.debug("Обход друзей друзей пользователя {} остановлен на {} рёбрах", userId, maxVisits);
+                    break traversal;
+                }
+                if (candidate == userId || Arrays.binarySearch(own, candidate) >= 0) {
+                    continue;
+                }
+                int[] count = mutual.get(candidate);
+                if (count == null) {
+                    mutual.put(candidate, new int[]{1});
+                    candidates.add(candidate);
+                } else {
+                    count[0]++;
+                }
+            }
+        }
+        return candidates.stream()
+                .sorted(Comparator.<Long>comparingInt(id -> mutual.get(id)[0]).reversed()
+                        .thenComparing(Comparator.naturalOrder()))
+                .limit(MAX_SUGGESTIONS)
+                .mapToLong(Long::longValue)
+                .toArray();
+    }
+
+    private static long[] joinPath(Search forward, Search backward, long meeting) {
+        long[] head = forward.pathTo(meeting);
+        long[] tail = backward.pathTo(meeting);
+        long[] path = new long[head.length + tail.length - 1];
+        for (int i = 0; i < head.length; i++) {
+            path[i] = head[head.length - 1 - i];
+        }
+        System.arraycopy(tail, 1, path, head.length, tail.length - 1);
+        return path;
+    }
+
+    /**
+     * Вызывается под блокировкой записи до изменения рёбер userId.
+     */
+    private void invalidateSuggestions(long userId) {
+        long[] affected = followers.get(userId);
+        synchronized (suggestions) {
+            suggestions.remove(userId);
+            if (affected != null) {
+                for (long followerId : affected) {
+                    suggestions.remove(followerId);
+                }
+            }
+        }
+        invalidations.incrementAndGet();
+    }
+
+    private void clearSuggestions() {
+        synchronized (suggestions) {
+            suggestions.clear();
+        }
+        invalidations.incrementAndGet();
+    }
+
+    private static void insert(LongKeyMap<long[]> adjacency, long key, long value) {
+        long[] ids = adjacency.get(key);
+        if (ids == null) {
+            adjacency.put(key, new long[]{value});
+            return;
+        }
+        int index = Arrays.binarySearch(ids, value);
+        if (index >= 0) {
+            return;
+        }
+        index = -index - 1;
+        long[] result = new long[ids.length + 1];
+        System.arraycopy(ids, 0, result, 0, index);
+        result[index] = value;
+        System.arraycopy(ids, index, result, index + 1, ids.length - index);
+        adjacency.put(key, result);
+    }
+
+    private static void delete(LongKeyMap<long[]> adjacency, long key, long value) {
+        long[] ids = adjacency.get(key);
+        if (ids == null) {
+            return;
+        }
+        int index = Arrays.binarySearch(ids, value);
+        if (index < 0) {
+            return;
+        }
+        if (ids.length == 1) {
+            adjacency.remove(key);
+            return;
+        }
+        long[] result = new long[ids.length - 1];
+        System.arraycopy(ids, 0, result, 0, index);
+        System.arraycopy(ids, index + 1, result, index, ids.length - index - 1);
+        adjacency.put(key, result);
+    }
+
+    private static LongKeyMap<long[]> toAdjacency(Map<Long, EdgeBuffer> buffers) {
+        LongKeyMap<long[]> adjacency = new LongKeyMap<>();
+        buffers.forEach((id, buffer) -> adjacency.put(id, buffer.toSortedArray()));
+        return adjacency;
+    }
+
+    /**
+     * Одна сторона двустороннего поиска: посещённые вершины, родитель каждой из них и текущий фронт.
+     */
+    private static class Search {
+        private final LongKeyMap<long[]> adjacency;
+        private final CompactBitmap visited = new CompactBitmap();
+        private final LongKeyMap<Long> parents = new LongKeyMap<>();
+        private long[] frontier = new long[16];
+        private int size;
+
+        Search(long start, LongKeyMap<long[]> adjacency) {
+            this.adjacency = adjacency;
+            visited.add(start);
+            frontier[size++] = start;
+        }
+
+        boolean visit(long node, long parent) {
+            if (!visited.add(node)) {
+                return false;
+            }
+            parents.put(node, parent);
+            if (size == frontier.length) {
+                frontier = Arrays.copyOf(frontier, size * 2);
+            }
+            frontier[size++] = node;
+            return true;
+        }
+
+        /**
+         * Вершины от node обратно к началу поиска.
+         */
+        long[] pathTo(long node) {
+            EdgeBuffer path = new EdgeBuffer();
+            path.add(node);
+            for (Long parent = parents.get(node); parent != null; parent = parents.get(parent)) {
+                path.add(parent);
+            }
+            return path.toArray();
+        }
+    }
+
+    @lombok.Value
+    public static class Stats {
+        int size;
+        int maxSize;
+        long hits;
+        long misses;
+        long invalidations;
+    }
+
+    /**
+     * Растущий массив ID. При сборке графа на старте дубликаты строк friendship схлопываются сортировкой.
+     */
+    private static class EdgeBuffer {
+        private long[] values = new long[4];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+
+        long[] toSortedArray() {
+            Arrays.sort(values, 0, size);
+            int unique = 0;
+            for (int i = 0; i < size; i++) {
+                if (unique == 0 || values[unique - 1] != values[i]) {
+                    values[unique++] = values[i];
+                }
+            }
+            return Arrays.copyOf(values, unique);
+        }
+    }
+}
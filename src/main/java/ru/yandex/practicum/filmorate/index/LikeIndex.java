@@ -0,0 +1,222 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.event.FilmEvent;
+import ru.yandex.practicum.filmorate.event.LikeEvent;
+import ru.yandex.practicum.filmorate.model.enums.Operation;
+import ru.yandex.practicum.filmorate.storage.LikeStorage;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Лайки в памяти: для каждого фильма — множество лайкнувших пользователей, для каждого пользователя —
+ * множество лайкнутых фильмов, оба в виде {@link CompactBitmap}. Строится из film_like при старте
+ * и обновляется после коммита по событиям лайков и удаления фильмов.
+ * <p>
+ * Индекс — единственный источник числа лайков в памяти: {@link PopularFilmsLeaderboard} и поиск берут
+ * его отсюда. Поэтому перестройка и обработка лайков выполняются раньше остальных слушателей.
+ */
+@Slf4j
+@Component
+public class LikeIndex {
+    private final LikeStorage likeStorage;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<Long, CompactBitmap> filmLikes = new HashMap<>();
+    private Map<Long, CompactBitmap> userLikes = new HashMap<>();
+
+    @Autowired
+    public LikeIndex(LikeStorage likeStorage) {
+        this.likeStorage = likeStorage;
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Map<Long, CompactBitmap> films = new HashMap<>();
+        Map<Long, CompactBitmap> users = new HashMap<>();
+        likeStorage.exportLikes(like -> {
+            films.computeIfAbsent(like.getFilmId(), id -> new CompactBitmap()).add(like.getUserId());
+            users.computeIfAbsent(like.getUserId(), id -> new CompactBitmap()).add(like.getFilmId());
+        });
+        lock.writeLock().lock();
+        try {
+            filmLikes = films;
+            userLikes = users;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Индекс лайков построен. Фильмов с лайками: {}, пользователей с лайками: {}",
+                films.size(), users.size());
+    }
+
+    public long getLikesAmount(Long filmId) {
+        lock.readLock().lock();
+        try {
+            CompactBitmap users = filmLikes.get(filmId);
+            return users == null ? 0 : users.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<Long, Set<Long>> getFilmsLikes(Collection<Long> filmIds) {
+        Map<Long, Set<Long>> likes = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (Long filmId : filmIds) {
+                CompactBitmap users = filmLikes.get(filmId);
+                if (users != null) {
+                    Set<Long> ids = new HashSet<>();
+                    users.forEach(ids::add);
+                    likes.put(filmId, ids);
+                }
+            }
+            return likes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Фильмы, которые лайкнули оба пользователя, по возрастанию ID.
+     */
+    public List<Long> getCommonFilms(Long userId, Long otherUserId) {
+        List<Long> common = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            CompactBitmap first = userLikes.get(userId);
+            CompactBitmap second = userLikes.get(otherUserId);
+            if (first != null && second != null) {
+                first.forEachAnd(second, common::add);
+            }
+            return common;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Пользователь с наибольшим числом общих с userId лайков; при равенстве — с меньшим ID.
+     * Кандидаты — только те, кто лайкнул хотя бы один фильм из лайков userId.
+     */
+    public Optional<Long> findMostSimilarUser(Long userId) {
+        lock.readLock().lock();
+        try {
+            CompactBitmap target = userLikes.get(userId);
+            if (target == null) {
+                return Optional.empty();
+            }
+            CompactBitmap candidates = new CompactBitmap();
+            target.forEach(filmId -> filmLikes.get(filmId).forEach(candidates::add));
+            candidates.remove(userId);
+
+            long[] best = {0, -1};
+            candidates.forEach(candidate -> {
+                long overlap = userLikes.get(candidate).andCardinality(target);
+                if (overlap > best[0]) {
+                    best[0] = overlap;
+                    best[1] = candidate;
+                }
+            });
+            return best[1] < 0 ? Optional.empty() : Optional.of(best[1]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Фильмы, которые лайкнул userId, но не лайкнул excludedUserId, по возрастанию ID.
+     */
+    public List<Long> getFilmsLikedOnlyBy(Long userId, Long excludedUserId) {
+        List<Long> films = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            CompactBitmap liked = userLikes.get(userId);
+            if (liked == null) {
+                return films;
+            }
+            CompactBitmap excluded = userLikes.get(excludedUserId);
+            if (excluded == null) {
+                liked.forEach(films::add);
+            } else {
+                liked.forEachAndNot(excluded, films::add);
+            }
+            return films;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Не больше limit пользователей из userIds (по возрастанию), которые лайкнули фильм.
+     */
+    public long[] filterLikedBy(Long filmId, long[] userIds, int limit) {
+        lock.readLock().lock();
+        try {
+            CompactBitmap users = filmLikes.get(filmId);
+            if (users == null) {
+                return new long[0];
+            }
+            long[] liked = new long[Math.min(limit, userIds.length)];
+            int size = 0;
+            for (int i = 0; i < userIds.length && size < liked.length; i++) {
+                if (users.contains(userIds[i])) {
+                    liked[size++] = userIds[i];
+                }
+            }
+            return Arrays.copyOf(liked, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLike(LikeEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (event.getOperation() == Operation.ADD) {
+                filmLikes.computeIfAbsent(event.getFilmId(), id -> new CompactBitmap()).add(event.getUserId());
+                userLikes.computeIfAbsent(event.getUserId(), id -> new CompactBitmap()).add(event.getFilmId());
+            } else {
+                remove(filmLikes, event.getFilmId(), event.getUserId());
+                remove(userLikes, event.getUserId(), event.getFilmId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFilm(FilmEvent event) {
+        if (event.getOperation() != Operation.REMOVE) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            CompactBitmap users = filmLikes.remove(event.getFilmId());
+            if (users != null) {
+                users.forEach(userId -> remove(userLikes, userId, event.getFilmId()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void remove(Map<Long, CompactBitmap> index, Long key, long value) {
+        CompactBitmap bitmap = index.get(key);
+        if (bitmap != null && bitmap.remove(value) && bitmap.isEmpty()) {
+            index.remove(key);
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.event.FilmEvent;
+import ru.yandex.practicum.filmorate.event.LikeEvent;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.enums.Operation;
+import ru.yandex.practicum.filmorate.model.enums.PopularSort;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.LikeStorage;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+import java.util.stream.Collectors;
+
+/**
+ * Рейтинг фильмов, который хранится в памяти.
+ * Кроме общего рейтинга ведутся отдельные рейтинги по каждому жанру, году выпуска и паре жанр-год,
+ * поэтому запрос популярных фильмов с фильтрами отвечает за O(count) без обращения к БД.
+ * <p>
+ * Каждый рейтинг ведётся в двух порядках — по числу лайков и по «горячести» ({@link PopularSort}).
+ * Горячесть в момент t равна сумме 2^(-(t - t_i) / T) по всем лайкам, где T — период полураспада.
+ * Множитель 2^(-t / T) общий для всех фильмов и на порядок не влияет, поэтому хранится Σ 2^((t_i - t0) / T)
+ * от точки отсчёта t0, выбранной при перестройке: лайк только прибавляет к сумме свой вес, а уже посчитанные
+ * оценки со временем переписывать не нужно. Вес — целое число с {@link #HOT_PRECISION_BITS} битами точности,
+ * а сумма — {@link BigInteger}, поэтому снятие лайка вычитает ровно то, что прибавила его постановка,
+ * и оценка не накапливает погрешность.
+ * <p>
+ * Число лайков рейтинг не считает сам, а берёт из {@link LikeIndex}, который обрабатывает события раньше.
+ */
+@Slf4j
+@Component
+public class PopularFilmsLeaderboard {
+    private static final Map<PopularSort, Comparator<Entry>> ORDERS = Map.of(
+            PopularSort.likes, Comparator.comparingLong(Entry::getLikes).reversed()
+                    .thenComparingLong(Entry::getFilmId),
+            PopularSort.hot, Comparator.comparing(Entry::getHotScore).reversed()
+                    .thenComparingLong(Entry::getFilmId));
+    private static final double SECONDS_PER_HOUR = 3600;
+    private static final int HOT_PRECISION_BITS = 32;
+    /**
+     * Насколько периодов полураспада назад от перестройки ставится точка отсчёта. Лайки старше неё
+     * весят меньше 2^-HOT_HISTORY_HALF_LIVES свежего лайка и считаются нулевыми.
+     */
+    private static final int HOT_HISTORY_HALF_LIVES = 32;
+
+    private final FilmStorage filmStorage;
+    private final GenreStorage genreStorage;
+    private final LikeStorage likeStorage;
+    private final LikeIndex likeIndex;
+    private final long halfLifeSeconds;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final Map<PopularSort, Ranking> rankings = new EnumMap<>(PopularSort.class);
+    private volatile long hotOrigin;
+
+    @Autowired
+    public PopularFilmsLeaderboard(@Qualifier("dbFilmStorage") FilmStorage filmStorage, GenreStorage genreStorage,
+                                   LikeStorage likeStorage, LikeIndex likeIndex,
+                                   @Value("${filmorate.popular.hot-half-life-hours:24}") double hotHalfLifeHours) {
+        this.filmStorage = filmStorage;
+        this.genreStorage = genreStorage;
+        this.likeStorage = likeStorage;
+        this.likeIndex = likeIndex;
+        this.halfLifeSeconds = Math.max(1, Math.round(hotHalfLifeHours * SECONDS_PER_HOUR));
+        for (PopularSort sort : PopularSort.values()) {
+            rankings.put(sort, new Ranking(ORDERS.get(sort)));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Collection<Film> films = filmStorage.getAllFilms();
+        List<Long> ids = films.stream().map(Film::getId).collect(Collectors.toList());
+        Map<Long, Collection<Genre>> genres = genreStorage.getFilmsGenres(ids);
+        long origin = Instant.now().minus(Duration.ofSeconds(halfLifeSeconds).multipliedBy(HOT_HISTORY_HALF_LIVES))
+                .getEpochSecond();
+        Map<Long, BigInteger> hotScores = new HashMap<>();
+        likeStorage.exportLikes(like -> {
+            hotScores.merge(like.getFilmId(), hotWeight(like.getCreatedAt(), origin), BigInteger::add);
+        });
+
+        lock.writeLock().lock();
+        try {
+            hotOrigin = origin;
+            entries.clear();
+            rankings.values().forEach(Ranking::clear);
+            for (Film film : films) {
+                put(new Entry(film.getId(), likeIndex.getLikesAmount(film.getId()),
+                        hotScores.getOrDefault(film.getId(), BigInteger.ZERO),
+                        film.getReleaseDate().getYear(), genreIds(genres.getOrDefault(film.getId(), List.of()))));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Рейтинг популярных фильмов построен. Фильмов в рейтинге: {}", films.size());
+    }
+
+    public List<Long> getTop(int count, Optional<Long> genreId, Optional<Integer> year, PopularSort sort) {
+        lock.readLock().lock();
+        try {
+            Ranking ranking = rankings.get(sort);
+            NavigableSet<Entry> source = ranking.all;
+            if (genreId.isPresent() && year.isPresent()) {
+                source = ranking.byGenreYear.getOrDefault(new GenreYear(genreId.get(), year.get()),
+                        Collections.emptyNavigableSet());
+            } else if (genreId.isPresent()) {
+                source = ranking.byGenre.getOrDefault(genreId.get(), Collections.emptyNavigableSet());
+            } else if (year.isPresent()) {
+                source = ranking.byYear.getOrDefault(year.get(), Collections.emptyNavigableSet());
+            }
+            return source.stream().limit(count).map(Entry::getFilmId).collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Обходит фильмы в порядке убывания лайков, пока visitor возвращает true.
+     */
+    public void forEachByLikes(LongPredicate visitor) {
+        lock.readLock().lock();
+        try {
+            for (Entry entry : rankings.get(PopularSort.likes).all) {
+                if (!visitor.test(entry.getFilmId())) {
+                    return;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLike(LikeEvent event) {
+        boolean added = event.getOperation() == Operation.ADD;
+        long likes = likeIndex.getLikesAmount(event.getFilmId());
+        lock.writeLock().lock();
+        try {
+            Entry entry = remove(event.getFilmId());
+            if (entry != null) {
+                BigInteger weight = hotWeight(event.getLikedAt(), hotOrigin);
+                BigInteger hotScore = likes == 0 ? BigInteger.ZERO
+                        : added ? entry.getHotScore().add(weight)
+                        : entry.getHotScore().subtract(weight).max(BigInteger.ZERO);
+                put(new Entry(entry.getFilmId(), likes, hotScore, entry.getYear(), entry.getGenreIds()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFilm(FilmEvent event) {
+        Long filmId = event.getFilmId();
+        if (event.getOperation() == Operation.REMOVE) {
+            lock.writeLock().lock();
+            try {
+                remove(filmId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        Film film;
+        try {
+            film = filmStorage.getFilmById(filmId);
+        } catch (EmptyResultDataAccessException e) {
+            return;
+        }
+        Set<Long> genres = genreIds(genreStorage.getFilmGenre(filmId));
+        lock.writeLock().lock();
+        try {
+            Entry old = remove(filmId);
+            long likes = likeIndex.getLikesAmount(filmId);
+            BigInteger hotScore = old == null ? BigInteger.ZERO : old.getHotScore();
+            put(new Entry(filmId, likes, hotScore, film.getReleaseDate().getYear(), genres));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(Entry entry) {
+        entries.put(entry.getFilmId(), entry);
+        rankings.values().forEach(ranking -> ranking.add(entry));
+    }
+
+    private Entry remove(Long filmId) {
+        Entry entry = entries.remove(filmId);
+        if (entry == null) {
+            return null;
+        }
+        rankings.values().forEach(ranking -> ranking.remove(entry));
+        return entry;
+    }
+
+    /**
+     * Вес лайка: 2^((likedAt - origin) / T), округлённый до HOT_PRECISION_BITS значащих бит. Целая часть показателя
+     * уходит в сдвиг, поэтому один и тот же лайк при постановке и снятии даёт один и тот же вес.
+     * Лайки старше origin весят 0.
+     */
+    BigInteger hotWeight(Instant likedAt, long origin) {
+        Instant time = likedAt == null ? Instant.now() : likedAt;
+        long age = time.getEpochSecond() - origin;
+        if (age < 0) {
+            return BigInteger.ZERO;
+        }
+        long halfLives = age / halfLifeSeconds;
+        double fraction = (double) (age % halfLifeSeconds) / halfLifeSeconds;
+        long mantissa = Math.round(Math.scalb(Math.pow(2, fraction), HOT_PRECISION_BITS));
+        return BigInteger.valueOf(mantissa).shiftLeft(Math.toIntExact(halfLives));
+    }
+
+    private static Set<Long> genreIds(Collection<Genre> genres) {
+        return genres.stream().map(Genre::getId).collect(Collectors.toSet());
+    }
+
+    @lombok.Value
+    private static class Entry {
+        long filmId;
+        long likes;
+        BigInteger hotScore;
+        int year;
+        Set<Long> genreIds;
+    }
+
+    @lombok.Value
+    private static class GenreYear {
+        long genreId;
+        int year;
+    }
+
+    /**
+     * Общий рейтинг и рейтинги по жанрам, годам и парам жанр-год в одном порядке.
+     */
+    private static class Ranking {
+        private final Comparator<Entry> order;
+        private final NavigableSet<Entry> all;
+        private final Map<Long, NavigableSet<Entry>> byGenre = new HashMap<>();
+        private final Map<Integer, NavigableSet<Entry>> byYear = new HashMap<>();
+        private final Map<GenreYear, NavigableSet<Entry>> byGenreYear = new HashMap<>();
+
+        Ranking(Comparator<Entry> order) {
+            this.order = order;
+            this.all = new TreeSet<>(order);
+        }
+
+        void add(Entry entry) {
+            all.add(entry);
+            byYear.computeIfAbsent(entry.getYear(), year -> new TreeSet<>(order)).add(entry);
+            for (Long genreId : entry.getGenreIds()) {
+                byGenre.computeIfAbsent(genreId, id -> new TreeSet<>(order)).add(entry);
+                byGenreYear.computeIfAbsent(new GenreYear(genreId, entry.getYear()), key -> new TreeSet<>(order))
+                        .add(entry);
+            }
+        }
+
+        void remove(Entry entry) {
+            all.remove(entry);
+            byYear.get(entry.getYear()).remove(entry);
+            for (Long genreId : entry.getGenreIds()) {
+                byGenre.get(genreId).remove(entry);
+                byGenreYear.get(new GenreYear(genreId, entry.getYear())).remove(entry);
+            }
+        }
+
+        void clear() {
+            all.clear();
+            byGenre.clear();
+            byYear.clear();
+            byGenreYear.clear();
+        }
+    }
+}
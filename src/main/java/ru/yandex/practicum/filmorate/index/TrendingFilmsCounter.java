@@ -0,0 +1,222 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.event.FilmEvent;
+import ru.yandex.practicum.filmorate.event.LikeEvent;
+import ru.yandex.practicum.filmorate.model.enums.Operation;
+import ru.yandex.practicum.filmorate.model.enums.TrendingWindow;
+import ru.yandex.practicum.filmorate.storage.LikeStorage;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Скользящие счётчики лайков по фильмам для выдачи трендов.
+ * У каждого фильма с недавними лайками есть кольцевой буфер почасовых корзин на самое длинное окно
+ * и готовые суммы по каждому {@link TrendingWindow}. Лайк меняет одну корзину и суммы, а смена часа
+ * в {@link #advance(Instant)} вычитает из сумм выпавшие из окон корзины и обнуляет их для повторного использования.
+ * <p>
+ * Для каждого окна фильмы с положительной суммой хранятся в отсортированном наборе, который меняется вместе
+ * с суммами, поэтому выдача трендов отвечает за O(count).
+ */
+@Slf4j
+@Component
+public class TrendingFilmsCounter {
+    private static final long HOUR_SECONDS = Duration.ofHours(1).toSeconds();
+    private static final int HOURS = Arrays.stream(TrendingWindow.values())
+            .mapToInt(TrendingWindow::getHours)
+            .max()
+            .orElseThrow();
+    private static final Comparator<Rank> ORDER = Comparator.comparingInt(Rank::getTotal).reversed()
+            .thenComparingLong(Rank::getFilmId);
+
+    private final LikeStorage likeStorage;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Counter> counters = new HashMap<>();
+    private final Map<TrendingWindow, NavigableSet<Rank>> rankings = new EnumMap<>(TrendingWindow.class);
+    private long currentHour;
+
+    @Autowired
+    public TrendingFilmsCounter(LikeStorage likeStorage) {
+        this.likeStorage = likeStorage;
+        for (TrendingWindow window : TrendingWindow.values()) {
+            rankings.put(window, new TreeSet<>(ORDER));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Instant now = Instant.now();
+        lock.writeLock().lock();
+        try {
+            clear();
+            currentHour = hour(now);
+            likeStorage.exportLikesSince(now.minus(Duration.ofHours(HOURS)),
+                    like -> count(like.getFilmId(), like.getCreatedAt(), 1));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Счётчики трендов построены. Фильмов с лайками за {} ч: {}", HOURS, counters.size());
+    }
+
+    /**
+     * Возвращает не больше count фильмов с наибольшим числом лайков за окно; при равенстве — по возрастанию ID.
+     */
+    public List<Long> getTop(TrendingWindow window, int count) {
+        lock.readLock().lock();
+        try {
+            return rankings.get(window).stream()
+                    .limit(count)
+                    .map(Rank::getFilmId)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Сдвигает окна к часу, в который попадает now. Вызывается по расписанию и перед учётом более свежего лайка.
+     */
+    public void advance(Instant now) {
+        lock.writeLock().lock();
+        try {
+            advanceTo(hour(now));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLike(LikeEvent event) {
+        Instant likedAt = event.getLikedAt() == null ? Instant.now() : event.getLikedAt();
+        lock.writeLock().lock();
+        try {
+            count(event.getFilmId(), likedAt, event.getOperation() == Operation.ADD ? 1 : -1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFilm(FilmEvent event) {
+        if (event.getOperation() != Operation.REMOVE) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Counter counter = counters.remove(event.getFilmId());
+            if (counter != null) {
+                for (TrendingWindow window : TrendingWindow.values()) {
+                    addToTotal(event.getFilmId(), counter, window, -counter.totals[window.ordinal()]);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void count(Long filmId, Instant likedAt, int delta) {
+        long hour = hour(likedAt);
+        if (hour > currentHour) {
+            advanceTo(hour);
+        }
+        if (hour <= currentHour - HOURS) {
+            return;
+        }
+        Counter counter = counters.computeIfAbsent(filmId, id -> new Counter());
+        counter.hourly[(int) (hour % HOURS)] += delta;
+        for (TrendingWindow window : TrendingWindow.values()) {
+            if (hour > currentHour - window.getHours()) {
+                addToTotal(filmId, counter, window, delta);
+            }
+        }
+    }
+
+    private void advanceTo(long hour) {
+        if (hour <= currentHour) {
+            return;
+        }
+        if (hour - currentHour >= HOURS) {
+            clear();
+            currentHour = hour;
+            return;
+        }
+        Iterator<Map.Entry<Long, Counter>> iterator = counters.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Counter> entry = iterator.next();
+            Counter counter = entry.getValue();
+            for (TrendingWindow window : TrendingWindow.values()) {
+                int expiredLikes = 0;
+                for (long expired = currentHour - window.getHours() + 1; expired <= hour - window.getHours(); expired++) {
+                    expiredLikes += counter.hourly[(int) (expired % HOURS)];
+                }
+                addToTotal(entry.getKey(), counter, window, -expiredLikes);
+            }
+            for (long expired = currentHour - HOURS + 1; expired <= hour - HOURS; expired++) {
+                counter.hourly[(int) (expired % HOURS)] = 0;
+            }
+            if (counter.isEmpty()) {
+                iterator.remove();
+            }
+        }
+        currentHour = hour;
+    }
+
+    /**
+     * Меняет сумму фильма за окно и переставляет фильм в наборе этого окна.
+     */
+    private void addToTotal(long filmId, Counter counter, TrendingWindow window, int delta) {
+        if (delta == 0) {
+            return;
+        }
+        NavigableSet<Rank> ranking = rankings.get(window);
+        int[] totals = counter.totals;
+        int index = window.ordinal();
+        if (totals[index] > 0) {
+            ranking.remove(new Rank(filmId, totals[index]));
+        }
+        totals[index] += delta;
+        if (totals[index] > 0) {
+            ranking.add(new Rank(filmId, totals[index]));
+        }
+    }
+
+    private void clear() {
+        counters.clear();
+        rankings.values().forEach(Set::clear);
+    }
+
+    private static long hour(Instant instant) {
+        return Math.floorDiv(instant.getEpochSecond(), HOUR_SECONDS);
+    }
+
+    @lombok.Value
+    private static class Rank {
+        long filmId;
+        int total;
+    }
+
+    private static class Counter {
+        private final int[] hourly = new int[HOURS];
+        private final int[] totals = new int[TrendingWindow.values().length];
+
+        boolean isEmpty() {
+            for (int total : totals) {
+                if (total != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
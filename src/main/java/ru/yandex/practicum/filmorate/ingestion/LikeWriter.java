@@ -0,0 +1,308 @@
+package ru.yandex.practicum.filmorate.ingestion;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.event.LikeEvent;
+import ru.yandex.practicum.filmorate.exceptions.ServiceUnavailableException;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.UserFeed;
+import ru.yandex.practicum.filmorate.model.enums.EventType;
+import ru.yandex.practicum.filmorate.model.enums.Operation;
+import ru.yandex.practicum.filmorate.storage.LikeStorage;
+import ru.yandex.practicum.filmorate.storage.UserFeedStorage;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Запись лайков и соответствующих событий ленты.
+ * <p>
+ * По умолчанию каждый лайк пишется сразу в своей транзакции. При filmorate.likes.write-behind.enabled=true
+ * команды складываются в ограниченную очередь, а отдельный поток раз в flush-interval-ms забирает их пачкой
+ * и пишет batch-запросами в одной транзакции. Режим ack определяет, когда отвечать клиенту:
+ * enqueue — сразу после постановки в очередь, commit — после коммита пачки, в которую попал лайк.
+ * Если очередь переполнена дольше enqueue-timeout-ms, запрос отклоняется с 503: запись в обход очереди
+ * могла бы обогнать стоящие в ней команды по той же паре фильм-пользователь. В режиме commit лайк,
+ * не записанный за ack-timeout-ms, тоже даёт 503: он остаётся в очереди, но подтвердить его клиенту нельзя.
+ */
+@Slf4j
+@Component
+public class LikeWriter {
+    private final LikeStorage likeStorage;
+    private final UserFeedStorage feedStorage;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+    private final Ack ack;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long ackTimeoutMs;
+    private final long enqueueTimeoutMs;
+    private final BlockingQueue<LikeCommand> queue;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong overflows = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile int maxDepth;
+    private volatile int lastBatchSize;
+    private volatile boolean running;
+    private Thread worker;
+
+    public enum Ack {
+        enqueue,
+        commit
+    }
+
+    @Autowired
+    public LikeWriter(LikeStorage likeStorage, UserFeedStorage feedStorage, ApplicationEventPublisher eventPublisher,
+                      PlatformTransactionManager transactionManager,
+                      @Value("${filmorate.likes.write-behind.enabled:false}") boolean enabled,
+                      @Value("${filmorate.likes.write-behind.ack:commit}") Ack ack,
+                      @Value("${filmorate.likes.write-behind.capacity:10000}") int capacity,
+                      @Value("${filmorate.likes.write-behind.batch-size:500}") int batchSize,
+                      @Value("${filmorate.likes.write-behind.flush-interval-ms:20}") long flushIntervalMs,
+                      @Value("${filmorate.likes.write-behind.ack-timeout-ms:5000}") long ackTimeoutMs,
+                      @Value("${filmorate.likes.write-behind.enqueue-timeout-ms:100}") long enqueueTimeoutMs) {
+        this.likeStorage = likeStorage;
+        this.feedStorage = feedStorage;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.ack = ack;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.ackTimeoutMs = ackTimeoutMs;
+        this.enqueueTimeoutMs = enqueueTimeoutMs;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::run, "like-writer");
+        worker.setDaemon(true);
+        worker.start();
+        log.info("Отложенная запись лайков включена. Подтверждение: {}, пачка: {}, интервал: {} мс",
+                ack, batchSize, flushIntervalMs);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (worker == null) {
+            return;
+        }
+        running = false;
+        worker.join(TimeUnit.SECONDS.toMillis(10));
+        log.info("Отложенная запись лайков остановлена. Осталось в очереди: {}", queue.size());
+    }
+
+    public void addLike(Long filmId, Long userId) {
+        Instant now = Instant.now();
+        submit(new LikeCommand(new Like(filmId, userId, now), Operation.ADD, now));
+    }
+
+    public void removeLike(Long filmId, Long userId) {
+        submit(new LikeCommand(new Like(filmId, userId), Operation.REMOVE, Instant.now()));
+    }
+
+    public Stats getStats() {
+        return new Stats(enabled, ack, queue.size(), queue.remainingCapacity(), maxDepth, enqueued.get(),
+                written.get(), batches.get(), lastBatchSize, overflows.get(), failures.get());
+    }
+
+    private void submit(LikeCommand command) {
+        if (!enabled) {
+            transactionTemplate.executeWithoutResult(status -> applyOne(command));
+            return;
+        }
+        if (!running) {
+            throw new ServiceUnavailableException("Запись лайков остановлена, повторите позже");
+        }
+        if (!offer(command)) {
+            overflows.incrementAndGet();
+            log.warn("Очередь лайков переполнена, лайк пользователя {} фильму {} отклонён",
+                    command.like.getUserId(), command.like.getFilmId());
+            throw new ServiceUnavailableException("Очередь записи лайков переполнена, повторите позже");
+        }
+        enqueued.incrementAndGet();
+        maxDepth = Math.max(maxDepth, queue.size());
+        if (ack == Ack.commit) {
+            awaitCommit(command);
+        }
+    }
+
+    private boolean offer(LikeCommand command) {
+        try {
+            return queue.offer(command, enqueueTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Постановка лайка в очередь прервана", e);
+        }
+    }
+
+    private void awaitCommit(LikeCommand command) {
+        try {
+            command.done.get(ackTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Ожидание записи лайка прервано", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (TimeoutException e) {
+            log.warn("Лайк пользователя {} фильму {} не записан за {} мс, он остаётся в очереди",
+                    command.like.getUserId(), command.like.getFilmId(), ackTimeoutMs);
+            throw new ServiceUnavailableException("Запись лайка не подтверждена, повторите позже");
+        }
+    }
+
+    private void run() {
+        List<LikeCommand> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                LikeCommand first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long left = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || left <= 0) {
+                        break;
+                    }
+                    LikeCommand next = queue.poll(left, TimeUnit.NANOSECONDS);
+                    if (next != null) {
+                        batch.add(next);
+                    }
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (RuntimeException e) {
+                log.error("Ошибка в потоке записи лайков", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<LikeCommand> batch) {
+        int succeeded = batch.size();
+        try {
+            transactionTemplate.executeWithoutResult(status -> applyBatch(batch));
+            batch.forEach(command -> command.done.complete(null));
+        } catch (RuntimeException e) {
+            log.warn("Не удалось записать пачку из {} лайков, запись по одному: {}", batch.size(), e.getMessage());
+            succeeded = 0;
+            for (LikeCommand command : batch) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> applyOne(command));
+                    command.done.complete(null);
+                    succeeded++;
+                } catch (RuntimeException ex) {
+                    failures.incrementAndGet();
+                    log.error("Не удалось записать лайк пользователя {} фильму {}",
+                            command.like.getUserId(), command.like.getFilmId(), ex);
+                    command.done.completeExceptionally(ex);
+                }
+            }
+        }
+        batches.incrementAndGet();
+        written.addAndGet(succeeded);
+        lastBatchSize = batch.size();
+    }
+
+    private void applyOne(LikeCommand command) {
+        Like like = command.like;
+        if (command.operation == Operation.ADD) {
+            if (likeStorage.addLike(like.getFilmId(), like.getUserId(), like.getCreatedAt())) {
+                eventPublisher.publishEvent(new LikeEvent(like.getFilmId(), like.getUserId(), Operation.ADD,
+                        command.timestamp));
+            }
+        } else {
+            likeStorage.removeLike(like.getFilmId(), like.getUserId()).ifPresent(likedAt ->
+                    eventPublisher.publishEvent(new LikeEvent(like.getFilmId(), like.getUserId(), Operation.REMOVE,
+                            likedAt)));
+        }
+        feedStorage.addUserFeed(toFeed(command));
+    }
+
+    /**
+     * Для каждой пары фильм-пользователь в пачке важна только последняя команда:
+     * лайк и снятие лайка внутри одной пачки взаимно гасятся. В ленту попадают все команды по порядку.
+     */
+    private void applyBatch(List<LikeCommand> batch) {
+        Map<Like, LikeCommand> last = new LinkedHashMap<>();
+        for (LikeCommand command : batch) {
+            last.remove(command.like);
+            last.put(command.like, command);
+        }
+        List<Like> toAdd = new ArrayList<>();
+        List<Like> toRemove = new ArrayList<>();
+        last.forEach((like, command) -> (command.operation == Operation.ADD ? toAdd : toRemove).add(like));
+
+        for (Like like : toRemove.isEmpty() ? List.<Like>of() : likeStorage.removeLikes(toRemove)) {
+            eventPublisher.publishEvent(new LikeEvent(like.getFilmId(), like.getUserId(), Operation.REMOVE,
+                    like.getCreatedAt()));
+        }
+        for (Like like : toAdd.isEmpty() ? List.<Like>of() : likeStorage.addLikes(toAdd)) {
+            eventPublisher.publishEvent(new LikeEvent(like.getFilmId(), like.getUserId(), Operation.ADD,
+                    like.getCreatedAt()));
+        }
+        feedStorage.addUserFeeds(batch.stream().map(LikeWriter::toFeed).collect(Collectors.toList()));
+    }
+
+    private static UserFeed toFeed(LikeCommand command) {
+        return new UserFeed(0L, command.like.getUserId(), command.like.getFilmId(), command.timestamp,
+                EventType.LIKE, command.operation);
+    }
+
+    private static class LikeCommand {
+        private final Like like;
+        private final Operation operation;
+        private final Instant timestamp;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        LikeCommand(Like like, Operation operation, Instant timestamp) {
+            this.like = like;
+            this.operation = operation;
+            this.timestamp = timestamp;
+        }
+    }
+
+    @lombok.Value
+    public static class Stats {
+        boolean enabled;
+        Ack ack;
+        int depth;
+        int remainingCapacity;
+        int maxDepth;
+        long enqueued;
+        long written;
+        long batches;
+        int lastBatchSize;
+        long overflows;
+        long failures;
+    }
+}
@@ -0,0 +1,34 @@
+package ru.yandex.practicum.filmorate.job;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.cache.FilmCache;
+import ru.yandex.practicum.filmorate.storage.LikeStorage;
+
+/**
+ * Периодически сверяет film.like_count с таблицей film_like и исправляет расхождения.
+ */
+@Slf4j
+@Component
+public class LikesAmountRepairJob {
+    private final LikeStorage likeStorage;
+    private final FilmCache filmCache;
+
+    @Autowired
+    public LikesAmountRepairJob(LikeStorage likeStorage, FilmCache filmCache) {
+        this.likeStorage = likeStorage;
+        this.filmCache = filmCache;
+    }
+
+    @Scheduled(cron = "${filmorate.likes.repair-cron:0 0 4 * * *}")
+    public void repair() {
+        log.info("Запуск пересчёта количества лайков");
+        int repaired = likeStorage.recalculateLikesAmount();
+        if (repaired > 0) {
+            filmCache.invalidateAll();
+        }
+        log.info("Пересчёт количества лайков завершён. Исправлено фильмов: {}", repaired);
+    }
+}
@@ -0,0 +1,34 @@
+package ru.yandex.practicum.filmorate.job;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.cache.ReviewTopCache;
+import ru.yandex.practicum.filmorate.storage.ReviewStorage;
+
+/**
+ * Периодически сверяет review.useful с таблицей review_reaction и исправляет расхождения.
+ */
+@Slf4j
+@Component
+public class ReviewUsefulRepairJob {
+    private final ReviewStorage reviewStorage;
+    private final ReviewTopCache reviewTopCache;
+
+    @Autowired
+    public ReviewUsefulRepairJob(ReviewStorage reviewStorage, ReviewTopCache reviewTopCache) {
+        this.reviewStorage = reviewStorage;
+        this.reviewTopCache = reviewTopCache;
+    }
+
+    @Scheduled(cron = "${filmorate.reviews.useful-repair-cron:0 30 4 * * *}")
+    public void repair() {
+        log.info("Запуск пересчёта полезности отзывов");
+        int repaired = reviewStorage.recalculateUseful();
+        if (repaired > 0) {
+            reviewTopCache.invalidateAll();
+        }
+        log.info("Пересчёт полезности отзывов завершён. Исправлено отзывов: {}", repaired);
+    }
+}
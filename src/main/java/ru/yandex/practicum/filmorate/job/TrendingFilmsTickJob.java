@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.job;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.index.TrendingFilmsCounter;
+
+import java.time.Instant;
+
+/**
+ * Сдвигает окна трендов, чтобы старые лайки выпадали из выдачи даже когда новых лайков нет.
+ */
+@Component
+public class TrendingFilmsTickJob {
+    private final TrendingFilmsCounter trendingFilmsCounter;
+
+    @Autowired
+    public TrendingFilmsTickJob(TrendingFilmsCounter trendingFilmsCounter) {
+        this.trendingFilmsCounter = trendingFilmsCounter;
+    }
+
+    @Scheduled(cron = "${filmorate.trending.tick-cron:0 * * * * *}")
+    public void tick() {
+        trendingFilmsCounter.advance(Instant.now());
+    }
+}
@@ -0,0 +1,36 @@
+package ru.yandex.practicum.filmorate.model;
+
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.stream.Collectors;
+
+/**
+ * Непрозрачный курсор для keyset-пагинации: значения ключа последней записи страницы в Base64.
+ */
+public final class Cursor {
+    private static final String SEPARATOR = ":";
+
+    private Cursor() {
+    }
+
+    public static String encode(long... values) {
+        String raw = Arrays.stream(values).mapToObj(String::valueOf).collect(Collectors.joining(SEPARATOR));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static long[] decode(String cursor, int size) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            long[] values = Arrays.stream(raw.split(SEPARATOR)).mapToLong(Long::parseLong).toArray();
+            if (values.length != size) {
+                throw new ValidationException("Некорректный курсор: " + cursor);
+            }
+            return values;
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Некорректный курсор: " + cursor);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package ru.yandex.practicum.filmorate.model;
 
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -20,7 +21,7 @@ import java.util.Set;
  * Film.
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor(force = true)
 @AllArgsConstructor
 public class Film {
@@ -33,7 +34,10 @@ public class Film {
     @Positive(message = "Продолжительность фильма не может быть отрицательной или равна 0!")
     private final int duration;
     @Builder.Default
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private Set<Long> likes = new HashSet<>();
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long likeCount;
     private Long id;
     private Mpa mpa;
     @Builder.Default
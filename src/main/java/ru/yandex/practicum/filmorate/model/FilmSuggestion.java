@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Подсказка автодополнения: фильм, название или режиссёр которого начинается с введённого префикса.
+ */
+@Data
+@AllArgsConstructor
+public class FilmSuggestion {
+    private final Long id;
+    private final String name;
+}
@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.Instant;
+
+/**
+ * Лайк пользователя фильму — строка таблицы film_like. Лайк определяется парой фильм-пользователь,
+ * время постановки в сравнении не участвует.
+ */
+@Data
+@AllArgsConstructor
+public class Like {
+    private final Long filmId;
+    private final Long userId;
+    @EqualsAndHashCode.Exclude
+    private final Instant createdAt;
+
+    public Like(Long filmId, Long userId) {
+        this(filmId, userId, null);
+    }
+}
@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Краткий ответ на лайк: количество лайков фильма и стоит ли теперь лайк пользователя.
+ */
+@Data
+@AllArgsConstructor
+public class LikeStatus {
+    private final Long filmId;
+    private final long likeCount;
+    private final boolean liked;
+}
@@ -0,0 +1,32 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Страница выдачи и курсор следующей страницы (null, если страница последняя).
+ */
+@Data
+@AllArgsConstructor
+public class Page<T> {
+    private final Collection<T> items;
+    private final String nextCursor;
+
+    /**
+     * Собирает страницу из limit + 1 строк выборки. Лишняя строка означает, что следующая страница есть;
+     * тогда курсор строится по последней записи, попавшей на страницу.
+     */
+    public static <T> Page<T> of(Collection<T> rows, int limit, Function<T, String> cursor) {
+        List<T> items = new ArrayList<>(rows);
+        if (items.size() <= limit) {
+            return new Page<>(items, null);
+        }
+        items = new ArrayList<>(items.subList(0, limit));
+        return new Page<>(items, cursor.apply(items.get(limit - 1)));
+    }
+}
@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Краткие данные пользователя для списков на странице фильма.
+ */
+@Data
+@AllArgsConstructor
+public class UserSummary {
+    private final Long id;
+    private final String login;
+    private final String name;
+}
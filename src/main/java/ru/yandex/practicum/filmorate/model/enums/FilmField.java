@@ -0,0 +1,27 @@
+package ru.yandex.practicum.filmorate.model.enums;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+@JsonFormat(shape = JsonFormat.Shape.STRING)
+public enum FilmField {
+    id,
+    name,
+    description,
+    releaseDate,
+    duration,
+    mpa,
+    genres,
+    directors,
+    likes,
+    likeCount;
+
+    /**
+     * Поля, которые отдаются, если клиент не передал fields.
+     */
+    public static Set<FilmField> defaults() {
+        return EnumSet.complementOf(EnumSet.of(likeCount));
+    }
+}
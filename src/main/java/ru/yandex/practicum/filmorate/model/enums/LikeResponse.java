@@ -0,0 +1,10 @@
+package ru.yandex.practicum.filmorate.model.enums;
+
+/**
+ * Что вернуть в ответ на лайк: фильм целиком, краткий статус лайка или пустой ответ 204.
+ */
+public enum LikeResponse {
+    full,
+    compact,
+    none
+}
@@ -0,0 +1,10 @@
+package ru.yandex.practicum.filmorate.model.enums;
+
+/**
+ * Порядок выдачи популярных фильмов: по числу лайков за всё время или по «горячести»,
+ * где вклад каждого лайка экспоненциально затухает с возрастом.
+ */
+public enum PopularSort {
+    likes,
+    hot
+}
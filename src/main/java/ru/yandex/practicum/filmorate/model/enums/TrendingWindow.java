@@ -0,0 +1,32 @@
+package ru.yandex.practicum.filmorate.model.enums;
+
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+
+/**
+ * Окно, за которое считаются лайки в выдаче трендов.
+ */
+public enum TrendingWindow {
+    DAY("24h", 24),
+    WEEK("7d", 24 * 7);
+
+    private final String value;
+    private final int hours;
+
+    TrendingWindow(String value, int hours) {
+        this.value = value;
+        this.hours = hours;
+    }
+
+    public int getHours() {
+        return hours;
+    }
+
+    public static TrendingWindow fromValue(String value) {
+        for (TrendingWindow window : values()) {
+            if (window.value.equalsIgnoreCase(value)) {
+                return window;
+            }
+        }
+        throw new ValidationException("Неизвестное окно трендов: " + value + ". Допустимо: 24h, 7d");
+    }
+}
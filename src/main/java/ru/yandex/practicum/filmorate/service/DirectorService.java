@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.service;
 import ru.yandex.practicum.filmorate.model.Director;
 
 import java.util.Collection;
+import java.util.Map;
 
 public interface DirectorService {
 
@@ -18,6 +19,8 @@ public interface DirectorService {
 
     Collection<Director> getFilmsDirector(Long id);
 
+    Map<Long, Collection<Director>> getFilmsDirectors(Collection<Long> filmIds);
+
     void updateFilmDirectors(Long id, Collection<Director> directors);
 
     void validateDirectorId(Long directorId);
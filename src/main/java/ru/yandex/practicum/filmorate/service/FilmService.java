@@ -1,18 +1,37 @@
 package ru.yandex.practicum.filmorate.service;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSuggestion;
+import ru.yandex.practicum.filmorate.model.LikeStatus;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.model.UserSummary;
+import ru.yandex.practicum.filmorate.model.enums.FilmField;
 import ru.yandex.practicum.filmorate.model.enums.FilmParameter;
+import ru.yandex.practicum.filmorate.model.enums.PopularSort;
 import ru.yandex.practicum.filmorate.model.enums.SortParam;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface FilmService {
     Collection<Film> getFilms();
 
+    Collection<Film> getFilms(Set<FilmField> fields);
+
+    Page<Film> getFilms(int limit, Optional<String> after, Set<FilmField> fields);
+
     Film getFilmById(Long id);
 
-    Collection<Film> getDirectorFilmsSorted(Long directorId, Optional<SortParam[]> orderBy);
+    Collection<Film> getFilmsByIds(Collection<Long> ids);
+
+    Film getFilmById(Long id, Set<FilmField> fields);
+
+    void exportFilms(Consumer<Film> consumer);
+
+    Collection<Film> getDirectorFilmsSorted(Long directorId, Optional<SortParam[]> orderBy, Set<FilmField> fields);
 
     Film createFilm(Film film);
 
@@ -24,11 +43,22 @@ public interface FilmService {
 
     Film removeLike(Long filmId, Long userId);
 
-    Collection<Film> getCommonFilms(Long userId, Long friendId);
+    LikeStatus likeFilm(Long filmId, Long userId);
 
-    Collection<Film> getMostPopularsFilms(Integer count, Optional<Long> genreId, Optional<Integer> year);
+    LikeStatus unlikeFilm(Long filmId, Long userId);
 
-    Collection<Film> searchFilmByParameter(String lowerCase, FilmParameter[] lowerCase1);
+    Collection<Film> getCommonFilms(Long userId, Long friendId, Set<FilmField> fields);
+
+    Collection<Film> getMostPopularsFilms(Integer count, Optional<Long> genreId, Optional<Integer> year,
+                                          PopularSort sort, Set<FilmField> fields);
+
+    Collection<Film> getTrendingFilms(String window, Integer count, Set<FilmField> fields);
+
+    Collection<Film> searchFilmByParameter(String lowerCase, FilmParameter[] lowerCase1, Set<FilmField> fields);
+
+    List<FilmSuggestion> suggestFilms(String prefix, int limit);
 
     void validateFilmId(Long id);
-}
\ No newline at end of file
+
+    List<UserSummary> getFriendsWhoLiked(Long filmId, Long userId, int limit);
+}
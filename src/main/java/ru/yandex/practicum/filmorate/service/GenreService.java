@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.service;
 import ru.yandex.practicum.filmorate.model.Genre;
 
 import java.util.Collection;
+import java.util.Map;
 
 
 public interface GenreService {
@@ -12,6 +13,8 @@ public interface GenreService {
 
     Collection<Genre> getFilmsGenre(Long id);
 
+    Map<Long, Collection<Genre>> getFilmsGenres(Collection<Long> filmIds);
+
     void updateFilmsGenre(Long id, Collection<Genre> genres);
 
     void validateGenreId(Collection<Genre> genres);
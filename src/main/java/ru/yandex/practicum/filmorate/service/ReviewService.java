@@ -1,8 +1,10 @@
 package ru.yandex.practicum.filmorate.service;
 
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.Review;
 
 import java.util.Collection;
+import java.util.Optional;
 
 public interface ReviewService {
     Review createReview(Review review);
@@ -17,6 +19,10 @@ public interface ReviewService {
 
     Collection<Review> getAllReviews(int count);
 
+    Page<Review> getReviews(Optional<Long> filmId, int limit, Optional<String> after);
+
+    Page<Review> getReviewsByUser(Long userId, int limit, Optional<String> after);
+
     Review postLike(Long id, Long userId);
 
     Review postDislike(Long id, Long userId);
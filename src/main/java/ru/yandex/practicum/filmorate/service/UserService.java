@@ -1,9 +1,11 @@
 package ru.yandex.practicum.filmorate.service;
 
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.model.UserFeed;
 
 import java.util.Collection;
+import java.util.Optional;
 
 public interface UserService {
     Collection<User> getUsers();
@@ -14,16 +16,27 @@ public interface UserService {
 
     User removeUser(Long id);
 
-    Collection<User> getFriends(long userId);
+    Collection<User> getFriends(long userId, boolean withFriendsIds);
+
+    Page<User> getFriends(long userId, int limit, Optional<String> after, boolean withFriendsIds);
 
     User addFriend(long userId, long friendId);
 
     User deleteFriend(long userId, long friendId);
 
-    Collection<User> getCommonFriends(long userId, long friendId);
+    Collection<User> getCommonFriends(long userId, long friendId, boolean withFriendsIds);
+
+    Page<User> getCommonFriends(long userId, long friendId, int limit, Optional<String> after,
+                                boolean withFriendsIds);
+
+    Collection<User> getFriendSuggestions(long userId, int limit);
+
+    Collection<User> getFriendshipPath(long userId, long otherUserId);
 
     User getUserById(long id);
 
+    Collection<User> getUsersByIds(Collection<Long> ids, boolean withFriendsIds);
+
     void validateUserId(Long userId);
 
     Collection<UserFeed> getUserFeed(Long userId);
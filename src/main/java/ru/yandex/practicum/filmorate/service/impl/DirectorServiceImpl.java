@@ -1,22 +1,28 @@
 package ru.yandex.practicum.filmorate.service.impl;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.event.DirectorEvent;
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.enums.Operation;
 import ru.yandex.practicum.filmorate.service.DirectorService;
 import ru.yandex.practicum.filmorate.storage.DirectorStorage;
 
 import java.util.Collection;
+import java.util.Map;
 
 @Service
 public class DirectorServiceImpl implements DirectorService {
 
     private final DirectorStorage directorStorage;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public DirectorServiceImpl(DirectorStorage directorStorage) {
+    public DirectorServiceImpl(DirectorStorage directorStorage, ApplicationEventPublisher eventPublisher) {
         this.directorStorage = directorStorage;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -34,9 +40,16 @@ public class DirectorServiceImpl implements DirectorService {
         return directorStorage.getFilmsDirector(id);
     }
 
+    @Override
+    public Map<Long, Collection<Director>> getFilmsDirectors(Collection<Long> filmIds) {
+        return directorStorage.getFilmsDirectors(filmIds);
+    }
+
     @Override
     public Director createDirector(Director director) {
-        return directorStorage.addNewDirector(director);
+        Director created = directorStorage.addNewDirector(director);
+        eventPublisher.publishEvent(new DirectorEvent(created.getId(), Operation.ADD));
+        return created;
     }
 
     @Override
@@ -50,12 +63,15 @@ public class DirectorServiceImpl implements DirectorService {
     @Override
     public Director updateDirector(Director director) {
         validateDirectorId(director.getId());
-        return directorStorage.updateDirector(director);
+        Director updated = directorStorage.updateDirector(director);
+        eventPublisher.publishEvent(new DirectorEvent(director.getId(), Operation.UPDATE));
+        return updated;
     }
 
     @Override
     public void deleteDirector(Long id) {
         directorStorage.deleteDirector(id);
+        eventPublisher.publishEvent(new DirectorEvent(id, Operation.REMOVE));
     }
 
     @Override
@@ -3,105 +3,192 @@ package ru.yandex.practicum.filmorate.service.impl;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.cache.FilmCache;
+import ru.yandex.practicum.filmorate.event.FilmEvent;
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import ru.yandex.practicum.filmorate.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.index.FriendGraph;
+import ru.yandex.practicum.filmorate.index.LikeIndex;
+import ru.yandex.practicum.filmorate.ingestion.LikeWriter;
+import ru.yandex.practicum.filmorate.index.PopularFilmsLeaderboard;
+import ru.yandex.practicum.filmorate.index.TrendingFilmsCounter;
+import ru.yandex.practicum.filmorate.model.Cursor;
+import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.model.Film;
-import ru.yandex.practicum.filmorate.model.UserFeed;
-import ru.yandex.practicum.filmorate.model.enums.EventType;
+import ru.yandex.practicum.filmorate.model.FilmSuggestion;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeStatus;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.model.UserSummary;
+import ru.yandex.practicum.filmorate.model.enums.FilmField;
 import ru.yandex.practicum.filmorate.model.enums.FilmParameter;
 import ru.yandex.practicum.filmorate.model.enums.Operation;
+import ru.yandex.practicum.filmorate.model.enums.PopularSort;
 import ru.yandex.practicum.filmorate.model.enums.SortParam;
+import ru.yandex.practicum.filmorate.model.enums.TrendingWindow;
 import ru.yandex.practicum.filmorate.service.*;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
-import ru.yandex.practicum.filmorate.storage.LikeStorage;
-import ru.yandex.practicum.filmorate.storage.UserFeedStorage;
 
-import java.time.Instant;
-import java.util.Collection;
-import java.util.HashSet;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 
 @Slf4j
 @Service
 @Transactional
 public class FilmServiceImpl implements FilmService {
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_SUGGESTIONS = 100;
+    private static final int MAX_LIKED_BY_FRIENDS = 100;
+
     private final FilmStorage filmStorage;
-    private final LikeStorage likeStorage;
-    private final UserFeedStorage feedStorage;
+    private final LikeWriter likeWriter;
     private final UserService userService;
     private final MpaService mpaService;
     private final GenreService genreService;
     private final DirectorService directorService;
+    private final PopularFilmsLeaderboard leaderboard;
+    private final LikeIndex likeIndex;
+    private final FriendGraph friendGraph;
+    private final TrendingFilmsCounter trendingCounter;
+    private final FilmCache filmCache;
+    private final FilmSearchIndex searchIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public FilmServiceImpl(@Qualifier("dbFilmStorage") FilmStorage filmStorage, LikeStorage likeStorage, UserFeedStorage userFeedStorage, UserService userService, MpaService mpaService, GenreService genreService, DirectorService directorService) {
+    public FilmServiceImpl(@Qualifier("dbFilmStorage") FilmStorage filmStorage, LikeWriter likeWriter, UserService userService, MpaService mpaService, GenreService genreService, DirectorService directorService, PopularFilmsLeaderboard leaderboard, LikeIndex likeIndex, FriendGraph friendGraph, TrendingFilmsCounter trendingCounter, FilmCache filmCache, FilmSearchIndex searchIndex, ApplicationEventPublisher eventPublisher) {
         this.filmStorage = filmStorage;
-        this.likeStorage = likeStorage;
-        this.feedStorage = userFeedStorage;
+        this.likeWriter = likeWriter;
         this.userService = userService;
         this.mpaService = mpaService;
         this.genreService = genreService;
         this.directorService = directorService;
+        this.leaderboard = leaderboard;
+        this.likeIndex = likeIndex;
+        this.friendGraph = friendGraph;
+        this.trendingCounter = trendingCounter;
+        this.filmCache = filmCache;
+        this.searchIndex = searchIndex;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
     public Collection<Film> getFilms() {
+        return getFilms(FilmField.defaults());
+    }
+
+    @Override
+    public Collection<Film> getFilms(Set<FilmField> fields) {
         Collection<Film> films = filmStorage.getAllFilms();
-        for (Film film : films) {
-            buildFilm(film);
+        buildFilms(films, fields);
+        return films;
+    }
+
+    @Override
+    public Page<Film> getFilms(int limit, Optional<String> after, Set<FilmField> fields) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE + ": " + limit);
         }
+        long afterId = after.map(cursor -> Cursor.decode(cursor, 1)[0]).orElse(0L);
+        Page<Film> page = Page.of(filmStorage.getFilmsPage(afterId, limit + 1), limit,
+                film -> Cursor.encode(film.getId()));
+        buildFilms(page.getItems(), fields);
+        return page;
+    }
+
+    /**
+     * Выгрузка идёт вне транзакции: хранилище само берёт соединение на каждую пачку фильмов
+     * и отпускает его, пока пачка пишется клиенту.
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void exportFilms(Consumer<Film> consumer) {
+        filmStorage.exportFilms(consumer);
+    }
+
+    @Override
+    public Collection<Film> getFilmsByIds(Collection<Long> ids) {
+        Collection<Film> films = filmStorage.getFilmsByIds(ids);
+        buildFilms(films, FilmField.defaults());
         return films;
     }
 
+    @Override
     public Film getFilmById(Long id) {
-        validateFilmId(id);
-        Film film = filmStorage.getFilmById(id);
-        buildFilm(film);
-        return film;
+        return getFilmById(id, FilmField.defaults());
+    }
+
+    @Override
+    public Film getFilmById(Long id, Set<FilmField> fields) {
+        return filmCache.get(id, fields, this::loadFilm);
     }
 
-    public Collection<Film> getDirectorFilmsSorted(Long directorId, Optional<SortParam[]> orderBy) {
+    @Override
+    public Collection<Film> getDirectorFilmsSorted(Long directorId, Optional<SortParam[]> orderBy,
+                                                   Set<FilmField> fields) {
         directorService.validateDirectorId(directorId);
         Collection<Film> films = filmStorage.getFilmsByDirectorAndSort(directorId, orderBy);
-        for (Film film : films) {
-            buildFilm(film);
-        }
+        buildFilms(films, fields);
         return films;
     }
 
     @Override
-    public Collection<Film> getCommonFilms(Long userId, Long friendId) {
+    public Collection<Film> getCommonFilms(Long userId, Long friendId, Set<FilmField> fields) {
         userService.validateUserId(userId);
         userService.validateUserId(friendId);
 
-        Collection<Film> films = filmStorage.getCommonFilms(userId, friendId);
-        for (Film film : films) {
-            buildFilm(film);
-        }
+        List<Long> ids = likeIndex.getCommonFilms(userId, friendId);
+        ids.sort(Comparator.comparingLong(likeIndex::getLikesAmount).reversed()
+                .thenComparing(Comparator.naturalOrder()));
+        Collection<Film> films = filmStorage.getFilmsByIds(ids);
+        buildFilms(films, fields);
         return films;
     }
 
     @Override
-    public Collection<Film> getMostPopularsFilms(Integer count, Optional<Long> genreId, Optional<Integer> year) {
-        Collection<Film> films = filmStorage.getMostPopularsFilms(count, genreId, year);
-        for (Film film : films) {
-            buildFilm(film);
+    public Collection<Film> getMostPopularsFilms(Integer count, Optional<Long> genreId, Optional<Integer> year,
+                                                 PopularSort sort, Set<FilmField> fields) {
+        if (count < 0) {
+            throw new ValidationException("Количество фильмов не может быть отрицательным: " + count);
         }
+        Collection<Film> films = filmStorage.getFilmsByIds(leaderboard.getTop(count, genreId, year, sort));
+        buildFilms(films, fields);
         return films;
     }
 
     @Override
-    public Collection<Film> searchFilmByParameter(String query, FilmParameter[] sortTypes) {
-        Collection<Film> films = filmStorage.searchFilmByParameter(query, sortTypes);
-        for (Film film : films) {
-            buildFilm(film);
+    public Collection<Film> getTrendingFilms(String window, Integer count, Set<FilmField> fields) {
+        if (count < 0) {
+            throw new ValidationException("Количество фильмов не может быть отрицательным: " + count);
         }
+        Collection<Film> films = filmStorage.getFilmsByIds(
+                trendingCounter.getTop(TrendingWindow.fromValue(window), count));
+        buildFilms(films, fields);
+        return films;
+    }
+
+    @Override
+    public Collection<Film> searchFilmByParameter(String query, FilmParameter[] sortTypes, Set<FilmField> fields) {
+        Collection<Film> films = filmStorage.getFilmsByIds(searchIndex.search(query, sortTypes));
+        buildFilms(films, fields);
         return films;
     }
 
+    @Override
+    public List<FilmSuggestion> suggestFilms(String prefix, int limit) {
+        if (limit <= 0 || limit > MAX_SUGGESTIONS) {
+            throw new ValidationException("Количество подсказок должно быть от 1 до " + MAX_SUGGESTIONS + ": " + limit);
+        }
+        return searchIndex.suggest(prefix, limit);
+    }
+
     @Override
     public Film createFilm(Film film) {
         mpaService.validateMpaId(film.getMpa().getId());
@@ -114,6 +201,7 @@ public class FilmServiceImpl implements FilmService {
         if (film.getDirectors() != null) {
             directorService.updateFilmDirectors(filmId, film.getDirectors());
         }
+        eventPublisher.publishEvent(new FilmEvent(filmId, Operation.ADD));
         return getFilmById(film.getId());
     }
 
@@ -123,43 +211,80 @@ public class FilmServiceImpl implements FilmService {
         filmStorage.updateFilm(film);
         genreService.updateFilmsGenre(film.getId(), film.getGenres());
         directorService.updateFilmDirectors(film.getId(), film.getDirectors());
+        eventPublisher.publishEvent(new FilmEvent(film.getId(), Operation.UPDATE));
         return getFilmById(film.getId());
     }
 
     @Override
     public Film removeFilm(Long id) {
-        validateFilmId(id);
-        Film film = filmStorage.getFilmById(id);
+        Film film = getFilmById(id);
         filmStorage.deleteFilm(id);
+        eventPublisher.publishEvent(new FilmEvent(id, Operation.REMOVE));
         return film;
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Film createLike(Long filmId, Long userId) {
-        validateFilmId(filmId);
-        userService.validateUserId(userId);
-        likeStorage.addLike(filmId, userId);
-        feedStorage.addUserFeed(new UserFeed(0L,
-                userId, filmId, Instant.now(),
-                EventType.LIKE, Operation.ADD
-        ));
+        likeFilm(filmId, userId);
         return getFilmById(filmId);
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Film removeLike(Long filmId, Long userId) {
-        validateFilmId(filmId);
-        userService.validateUserId(userId);
-        likeStorage.removeLike(filmId, userId);
-        feedStorage.addUserFeed(new UserFeed(0L,
-                userId, filmId, Instant.now(),
-                EventType.LIKE, Operation.REMOVE
-        ));
+        unlikeFilm(filmId, userId);
         return getFilmById(filmId);
     }
 
+    /**
+     * Лайк пишет {@link LikeWriter} в собственной транзакции или пачкой из очереди,
+     * поэтому метод не держит соединение открытым, пока ждёт записи.
+     * Количество лайков берётся из индекса лайков, который обновляется по событию этой же записи,
+     * так что ответ не требует повторной загрузки фильма.
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public LikeStatus likeFilm(Long filmId, Long userId) {
+        checkFilmExists(filmId);
+        userService.validateUserId(userId);
+        likeWriter.addLike(filmId, userId);
+        return new LikeStatus(filmId, likeIndex.getLikesAmount(filmId), true);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public LikeStatus unlikeFilm(Long filmId, Long userId) {
+        checkFilmExists(filmId);
+        userService.validateUserId(userId);
+        likeWriter.removeLike(filmId, userId);
+        return new LikeStatus(filmId, likeIndex.getLikesAmount(filmId), false);
+    }
+
     @Override
     public void validateFilmId(Long id) {
+        if (!filmCache.contains(id)) {
+            checkFilmExists(id);
+        }
+    }
+
+    @Override
+    public List<UserSummary> getFriendsWhoLiked(Long filmId, Long userId, int limit) {
+        if (limit <= 0 || limit > MAX_LIKED_BY_FRIENDS) {
+            throw new ValidationException("Количество друзей должно быть от 1 до " + MAX_LIKED_BY_FRIENDS + ": " + limit);
+        }
+        checkFilmExists(filmId);
+        userService.validateUserId(userId);
+        long[] liked = likeIndex.filterLikedBy(filmId, friendGraph.getFriends(userId), limit);
+        return userService.getUsersByIds(Arrays.stream(liked).boxed().collect(Collectors.toList()), false).stream()
+                .map(user -> new UserSummary(user.getId(), user.getLogin(), user.getName()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Проверяет существование фильма одним запросом, без загрузки жанров, режиссёров и лайков.
+     */
+    private void checkFilmExists(Long id) {
         try {
             filmStorage.getFilmById(id);
         } catch (EmptyResultDataAccessException e) {
@@ -167,10 +292,42 @@ public class FilmServiceImpl implements FilmService {
         }
     }
 
-    private void buildFilm(Film film) {
-        long id = film.getId();
-        film.setGenres(genreService.getFilmsGenre(id));
-        film.setDirectors(directorService.getFilmsDirector(id));
-        film.setLikes(new HashSet<>(likeStorage.getLikes(id)));
+    /**
+     * Загружает фильм со всеми полями для кэша.
+     */
+    private Film loadFilm(Long id) {
+        Film film;
+        try {
+            film = filmStorage.getFilmById(id);
+        } catch (EmptyResultDataAccessException e) {
+            throw new NotFoundException("Фильм с ID: " + id + " не найден!");
+        }
+        buildFilms(List.of(film), EnumSet.allOf(FilmField.class));
+        return film;
+    }
+
+    /**
+     * Догружает жанры, режиссёров и лайки списка фильмов — по одному запросу на каждую часть,
+     * причём только для запрошенных полей. Незапрошенные части остаются null.
+     */
+    private void buildFilms(Collection<Film> films, Set<FilmField> fields) {
+        if (films.isEmpty()) {
+            return;
+        }
+        List<Long> ids = films.stream().map(Film::getId).collect(Collectors.toList());
+        Map<Long, Collection<Genre>> genres = fields.contains(FilmField.genres)
+                ? genreService.getFilmsGenres(ids) : null;
+        Map<Long, Collection<Director>> directors = fields.contains(FilmField.directors)
+                ? directorService.getFilmsDirectors(ids) : null;
+        Map<Long, Set<Long>> likes = fields.contains(FilmField.likes)
+                ? likeIndex.getFilmsLikes(ids) : null;
+        for (Film film : films) {
+            film.setGenres(genres == null ? null : genres.getOrDefault(film.getId(), new ArrayList<>()));
+            film.setDirectors(directors == null ? null : directors.getOrDefault(film.getId(), new ArrayList<>()));
+            film.setLikes(likes == null ? null : likes.getOrDefault(film.getId(), new HashSet<>()));
+            if (!fields.contains(FilmField.likeCount)) {
+                film.setLikeCount(null);
+            }
+        }
     }
 }
\ No newline at end of file
@@ -9,6 +9,7 @@ import ru.yandex.practicum.filmorate.service.GenreService;
 import ru.yandex.practicum.filmorate.storage.GenreStorage;
 
 import java.util.Collection;
+import java.util.Map;
 
 @Service
 @Transactional
@@ -34,6 +35,11 @@ public class GenreServiceImpl implements GenreService {
         return genreDao.getFilmGenre(id);
     }
 
+    @Override
+    public Map<Long, Collection<Genre>> getFilmsGenres(Collection<Long> filmIds) {
+        return genreDao.getFilmsGenres(filmIds);
+    }
+
     @Override
     public void updateFilmsGenre(Long id, Collection<Genre> genres) {
         validateGenreId(genres);
@@ -2,8 +2,8 @@ package ru.yandex.practicum.filmorate.service.impl;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.index.LikeIndex;
 import ru.yandex.practicum.filmorate.model.Film;
-import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.RecommendationsService;
 import ru.yandex.practicum.filmorate.service.UserService;
@@ -14,57 +14,25 @@ import java.util.*;
 public class RecommendationsServiceImpl implements RecommendationsService {
     private final UserService userService;
     private final FilmService filmService;
+    private final LikeIndex likeIndex;
 
     @Autowired
-    public RecommendationsServiceImpl(UserService userService, FilmService filmService) {
+    public RecommendationsServiceImpl(UserService userService, FilmService filmService, LikeIndex likeIndex) {
         this.userService = userService;
         this.filmService = filmService;
+        this.likeIndex = likeIndex;
     }
 
+    /**
+     * Рекомендует фильмы пользователя с наибольшим числом общих лайков, которые целевой пользователь ещё не лайкнул.
+     */
     @Override
     public Collection<Film> getRecommendations(Long id) {
-        Map<User, ArrayList<Film>> data = new HashMap<>();
-        Collection<Film> films = filmService.getFilms();
-        Collection<User> users = userService.getUsers();
-        films.forEach(film1 -> users.stream().filter(user1 -> film1.getLikes().contains(user1.getId())).forEach(user1 -> {
-            if (!data.containsKey(user1)) {
-                data.put(user1, new ArrayList<>());
-            }
-            data.get(user1).add(film1);
-        }));
-
-        User targerUser = userService.getUserById(id);
-        List<Film> recommendedFilms = new ArrayList<>();
-
-        boolean anyLikes = data.values().stream().anyMatch(list -> !list.isEmpty());
-        if (!anyLikes) {
-            return recommendedFilms;
-        }
-
-        int maxIntersection = 0;
-        User similarUser = null;
-        Set<Film> targetUserLikes = new HashSet<>(data.get(targerUser));
-        for (Map.Entry<User, ArrayList<Film>> entry : data.entrySet()) {
-            if (!entry.getKey().equals(targerUser)) {
-                Set<Film> intersection = new HashSet<>(entry.getValue());
-                intersection.retainAll(targetUserLikes);
-                if (intersection.size() > maxIntersection) {
-                    maxIntersection = intersection.size();
-                    similarUser = entry.getKey();
-                }
-            }
+        userService.validateUserId(id);
+        Optional<Long> similarUser = likeIndex.findMostSimilarUser(id);
+        if (similarUser.isEmpty()) {
+            return new ArrayList<>();
         }
-
-        if (similarUser != null) {
-            Set<Film> similarUserLikes = new HashSet<>(data.get(similarUser));
-            for (Film film : similarUserLikes) {
-                if (!targetUserLikes.contains(film)) {
-                    recommendedFilms.add(film);
-                }
-            }
-        }
-
-        data.clear();
-        return recommendedFilms;
+        return filmService.getFilmsByIds(likeIndex.getFilmsLikedOnlyBy(similarUser.get(), id));
     }
 }
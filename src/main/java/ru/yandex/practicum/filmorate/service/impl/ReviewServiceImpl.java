@@ -1,9 +1,16 @@
 package ru.yandex.practicum.filmorate.service.impl;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.cache.ReviewTopCache;
+import ru.yandex.practicum.filmorate.event.ReviewEvent;
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import ru.yandex.practicum.filmorate.model.Cursor;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.Review;
 import ru.yandex.practicum.filmorate.model.UserFeed;
 import ru.yandex.practicum.filmorate.model.enums.EventType;
@@ -16,27 +23,38 @@ import ru.yandex.practicum.filmorate.storage.UserFeedStorage;
 
 import java.time.Instant;
 import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 @Service
+@Transactional
 public class ReviewServiceImpl implements ReviewService {
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final ReviewStorage reviewDao;
 
     private final UserService userService;
     private final FilmService filmService;
     private final UserFeedStorage feedService;
+    private final ReviewTopCache topCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public ReviewServiceImpl(ReviewStorage reviewDao, UserService userService, FilmService filmService, UserFeedStorage feedService) {
+    public ReviewServiceImpl(ReviewStorage reviewDao, UserService userService, FilmService filmService, UserFeedStorage feedService,
+                             ReviewTopCache topCache, ApplicationEventPublisher eventPublisher) {
         this.reviewDao = reviewDao;
         this.userService = userService;
         this.filmService = filmService;
         this.feedService = feedService;
+        this.topCache = topCache;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
     public Review createReview(Review review) {
         checkReview(review);
         reviewDao.makeReview(review);
+        eventPublisher.publishEvent(new ReviewEvent(review.getReviewId(), review.getFilmId(), Operation.ADD));
         feedService.addUserFeed(new UserFeed(0L,
                 review.getUserId(), review.getReviewId(), Instant.now(),
                 EventType.REVIEW, Operation.ADD
@@ -49,6 +67,7 @@ public class ReviewServiceImpl implements ReviewService {
         checkReview(review);
         reviewDao.updateReview(review);
         Review oldReview = reviewDao.getReviewById(review.getReviewId());
+        eventPublisher.publishEvent(new ReviewEvent(oldReview.getReviewId(), oldReview.getFilmId(), Operation.UPDATE));
         feedService.addUserFeed(new UserFeed(0L,
                 oldReview.getUserId(), oldReview.getReviewId(), Instant.now(),
                 EventType.REVIEW, Operation.UPDATE
@@ -60,6 +79,7 @@ public class ReviewServiceImpl implements ReviewService {
     public Review deleteReview(Long id) {
         Review review = reviewDao.getReviewById(id);
         reviewDao.deleteReview(id);
+        eventPublisher.publishEvent(new ReviewEvent(id, review.getFilmId(), Operation.REMOVE));
         feedService.addUserFeed(new UserFeed(0L,
                 review.getUserId(), review.getReviewId(), Instant.now(),
                 EventType.REVIEW, Operation.REMOVE
@@ -78,10 +98,10 @@ public class ReviewServiceImpl implements ReviewService {
 
     @Override
     public Collection<Review> getReviewByFilmId(Long filmId, int count) {
-        filmService.getFilmById(filmId);
+        filmService.validateFilmId(filmId);
         Collection<Review> reviews;
         try {
-            reviews = reviewDao.getReviewByFilmId(filmId, count);
+            reviews = topCache.getTop(filmId, count, reviewDao::getReviewByFilmId);
         } catch (EmptyResultDataAccessException e) {
             throw new IllegalArgumentException("Отзывов на фильм с ID: " + filmId + " не найдено!");
         }
@@ -93,29 +113,61 @@ public class ReviewServiceImpl implements ReviewService {
         return reviewDao.getAllReviews(count);
     }
 
+    @Override
+    public Page<Review> getReviews(Optional<Long> filmId, int limit, Optional<String> after) {
+        checkPageSize(limit);
+        filmId.ifPresent(filmService::validateFilmId);
+        long[] key = after.map(cursor -> Cursor.decode(cursor, 2)).orElse(new long[]{Integer.MAX_VALUE, 0});
+        int afterUseful = (int) key[0];
+        List<Review> reviews = filmId.isPresent()
+                ? reviewDao.getReviewByFilmIdPage(filmId.get(), afterUseful, key[1], limit + 1)
+                : reviewDao.getReviewsPage(afterUseful, key[1], limit + 1);
+        return Page.of(reviews, limit, last -> Cursor.encode(last.getUseful(), last.getReviewId()));
+    }
+
+    @Override
+    public Page<Review> getReviewsByUser(Long userId, int limit, Optional<String> after) {
+        checkPageSize(limit);
+        userService.validateUserId(userId);
+        long beforeId = after.map(cursor -> Cursor.decode(cursor, 1)[0]).orElse(Long.MAX_VALUE);
+        List<Review> reviews = reviewDao.getReviewsByUser(userId, beforeId, limit + 1);
+        return Page.of(reviews, limit, last -> Cursor.encode(last.getReviewId()));
+    }
+
     @Override
     public Review postLike(Long id, Long userId) {
         userService.getUserById(userId);
         reviewDao.postLike(id, userId);
-        return reviewDao.getReviewById(id);
+        return usefulnessChanged(reviewDao.getReviewById(id));
     }
 
     @Override
     public Review postDislike(Long id, Long userId) {
         reviewDao.postDislike(id, userId);
-        return reviewDao.getReviewById(id);
+        return usefulnessChanged(reviewDao.getReviewById(id));
     }
 
     @Override
     public Review deleteLike(Long id, Long userId) {
         reviewDao.deleteLike(id, userId);
-        return reviewDao.getReviewById(id);
+        return usefulnessChanged(reviewDao.getReviewById(id));
     }
 
     @Override
     public Review deleteDislike(Long id, Long userId) {
         reviewDao.deleteDislike(id, userId);
-        return reviewDao.getReviewById(id);
+        return usefulnessChanged(reviewDao.getReviewById(id));
+    }
+
+    private Review usefulnessChanged(Review review) {
+        eventPublisher.publishEvent(new ReviewEvent(review.getReviewId(), review.getFilmId(), Operation.UPDATE));
+        return review;
+    }
+
+    private static void checkPageSize(int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE + ": " + limit);
+        }
     }
 
     private void checkReview(Review review) {
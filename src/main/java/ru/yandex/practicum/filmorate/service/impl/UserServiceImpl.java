@@ -3,31 +3,53 @@ package ru.yandex.practicum.filmorate.service.impl;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.event.FriendEvent;
+import ru.yandex.practicum.filmorate.event.LikeEvent;
+import ru.yandex.practicum.filmorate.event.UserEvent;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import ru.yandex.practicum.filmorate.index.FriendGraph;
+import ru.yandex.practicum.filmorate.model.Cursor;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.model.UserFeed;
 import ru.yandex.practicum.filmorate.model.enums.EventType;
 import ru.yandex.practicum.filmorate.model.enums.Operation;
 import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.LikeStorage;
 import ru.yandex.practicum.filmorate.storage.UserFeedStorage;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
 
 import java.time.Instant;
-import java.util.Collection;
+import java.util.*;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @Transactional
 public class UserServiceImpl implements UserService {
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final UserStorage userStorage;
     private final UserFeedStorage feedStorage;
+    private final LikeStorage likeStorage;
+    private final FriendGraph friendGraph;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public UserServiceImpl(@Qualifier("dbUserStorage") UserStorage userStorage, UserFeedStorage feedStorage) {
+    public UserServiceImpl(@Qualifier("dbUserStorage") UserStorage userStorage, UserFeedStorage feedStorage,
+                           LikeStorage likeStorage, FriendGraph friendGraph,
+                           ApplicationEventPublisher eventPublisher) {
         this.userStorage = userStorage;
         this.feedStorage = feedStorage;
+        this.likeStorage = likeStorage;
+        this.friendGraph = friendGraph;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -39,6 +61,7 @@ public class UserServiceImpl implements UserService {
     public User createUser(User user) {
         checkUserCriteria(user);
         userStorage.addNewUser(user);
+        eventPublisher.publishEvent(new UserEvent(user.getId(), Operation.ADD));
         return user;
     }
 
@@ -47,6 +70,7 @@ public class UserServiceImpl implements UserService {
         checkUserCriteria(user);
         validateUserId(user.getId());
         userStorage.updateUser(user);
+        eventPublisher.publishEvent(new UserEvent(user.getId(), Operation.UPDATE));
         return user;
     }
 
@@ -54,14 +78,26 @@ public class UserServiceImpl implements UserService {
     public User removeUser(Long id) {
         validateUserId(id);
         User user = userStorage.getUserById(id);
+        Collection<Like> likes = likeStorage.getUserLikes(id);
         userStorage.deleteUser(id);
+        eventPublisher.publishEvent(new UserEvent(id, Operation.REMOVE));
+        for (Like like : likes) {
+            eventPublisher.publishEvent(new LikeEvent(like.getFilmId(), id, Operation.REMOVE, like.getCreatedAt()));
+        }
         return user;
     }
 
     @Override
-    public Collection<User> getFriends(long userId) {
+    public Collection<User> getFriends(long userId, boolean withFriendsIds) {
+        validateUserId(userId);
+        return attachFriendsIds(userStorage.getUsersByIds(toList(friendGraph.getFriends(userId))), withFriendsIds);
+    }
+
+    @Override
+    public Page<User> getFriends(long userId, int limit, Optional<String> after, boolean withFriendsIds) {
+        checkPageSize(limit);
         validateUserId(userId);
-        return userStorage.getFriends(userId);
+        return toPage(userStorage.getFriendsPage(userId, afterId(after), limit + 1), limit, withFriendsIds);
     }
 
     @Override
@@ -69,6 +105,7 @@ public class UserServiceImpl implements UserService {
         validateUserId(userId);
         validateUserId(friendId);
         User user = userStorage.addFriend(userId, friendId);
+        eventPublisher.publishEvent(new FriendEvent(userId, friendId, Operation.ADD));
         feedStorage.addUserFeed(new UserFeed(0L,
                 userId, friendId, Instant.now(),
                 EventType.FRIEND, Operation.ADD));
@@ -80,6 +117,7 @@ public class UserServiceImpl implements UserService {
         validateUserId(userId);
         validateUserId(friendId);
         User user = userStorage.deleteFriend(userId, friendId);
+        eventPublisher.publishEvent(new FriendEvent(userId, friendId, Operation.REMOVE));
         feedStorage.addUserFeed(new UserFeed(0L,
                 userId, friendId, Instant.now(),
                 EventType.FRIEND, Operation.REMOVE
@@ -88,10 +126,42 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    public Collection<User> getCommonFriends(long userId, long friendId) {
+    public Collection<User> getCommonFriends(long userId, long friendId, boolean withFriendsIds) {
+        validateUserId(userId);
+        validateUserId(friendId);
+        return attachFriendsIds(userStorage.getUsersByIds(toList(friendGraph.getCommonFriends(userId, friendId))),
+                withFriendsIds);
+    }
+
+    @Override
+    public Page<User> getCommonFriends(long userId, long friendId, int limit, Optional<String> after,
+                                       boolean withFriendsIds) {
+        checkPageSize(limit);
         validateUserId(userId);
         validateUserId(friendId);
-        return userStorage.getCommonFriends(userId, friendId);
+        return toPage(userStorage.getCommonFriendsPage(userId, friendId, afterId(after), limit + 1), limit,
+                withFriendsIds);
+    }
+
+    @Override
+    public Collection<User> getFriendSuggestions(long userId, int limit) {
+        if (limit <= 0 || limit > FriendGraph.MAX_SUGGESTIONS) {
+            throw new ValidationException("Количество рекомендаций должно быть от 1 до "
+                    + FriendGraph.MAX_SUGGESTIONS + ": " + limit);
+        }
+        validateUserId(userId);
+        return getUsersWithFriends(friendGraph.suggestFriends(userId, limit));
+    }
+
+    @Override
+    public Collection<User> getFriendshipPath(long userId, long otherUserId) {
+        validateUserId(userId);
+        validateUserId(otherUserId);
+        long[] path = friendGraph.findPath(userId, otherUserId);
+        if (path.length == 0) {
+            throw new NotFoundException("Пользователи " + userId + " и " + otherUserId + " не связаны цепочкой друзей");
+        }
+        return getUsersWithFriends(path);
     }
 
     @Override
@@ -100,6 +170,11 @@ public class UserServiceImpl implements UserService {
         return userStorage.getUserById(id);
     }
 
+    @Override
+    public Collection<User> getUsersByIds(Collection<Long> ids, boolean withFriendsIds) {
+        return attachFriendsIds(userStorage.getUsersByIds(ids), withFriendsIds);
+    }
+
     @Override
     public Collection<UserFeed> getUserFeed(Long userId) {
         validateUserId(userId);
@@ -109,12 +184,50 @@ public class UserServiceImpl implements UserService {
     @Override
     public void validateUserId(Long id) {
         try {
-            userStorage.getUserById(id);
+            userStorage.getUserWithoutFriends(id);
         } catch (EmptyResultDataAccessException e) {
             throw new IllegalArgumentException("Пользователь с ID: " + id + " не найден!");
         }
     }
 
+    private Collection<User> getUsersWithFriends(long[] ids) {
+        return getUsersByIds(toList(ids), true);
+    }
+
+    /**
+     * Заполняет friendsIds из графа дружбы или убирает их из ответа, если они не нужны.
+     */
+    private Collection<User> attachFriendsIds(Collection<User> users, boolean withFriendsIds) {
+        for (User user : users) {
+            user.setFriendsIds(withFriendsIds ? toSet(friendGraph.getFriends(user.getId())) : null);
+        }
+        return users;
+    }
+
+    private Page<User> toPage(Collection<User> rows, int limit, boolean withFriendsIds) {
+        Page<User> page = Page.of(rows, limit, user -> Cursor.encode(user.getId()));
+        attachFriendsIds(page.getItems(), withFriendsIds);
+        return page;
+    }
+
+    private static long afterId(Optional<String> after) {
+        return after.map(cursor -> Cursor.decode(cursor, 1)[0]).orElse(0L);
+    }
+
+    private static void checkPageSize(int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE + ": " + limit);
+        }
+    }
+
+    private static List<Long> toList(long[] ids) {
+        return Arrays.stream(ids).boxed().collect(Collectors.toList());
+    }
+
+    private static Set<Long> toSet(long[] ids) {
+        return Arrays.stream(ids).boxed().collect(Collectors.toCollection(HashSet::new));
+    }
+
     private void checkUserCriteria(User user) {
         if (user.getName() == null || user.getName().isBlank()) {
             user.setName(user.getLogin());
@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.storage;
 import ru.yandex.practicum.filmorate.model.Director;
 
 import java.util.Collection;
+import java.util.Map;
 
 public interface DirectorStorage {
     Collection<Director> getAllDirectors();
@@ -18,5 +19,7 @@ public interface DirectorStorage {
 
     Collection<Director> getFilmsDirector(Long filmId);
 
+    Map<Long, Collection<Director>> getFilmsDirectors(Collection<Long> filmIds);
+
     void deleteDirector(Long id);
 }
@@ -1,17 +1,21 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import ru.yandex.practicum.filmorate.model.Film;
-import ru.yandex.practicum.filmorate.model.enums.FilmParameter;
 import ru.yandex.practicum.filmorate.model.enums.SortParam;
 
 import java.util.Collection;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface FilmStorage {
     Collection<Film> getAllFilms();
 
+    Collection<Film> getFilmsPage(Long afterId, int limit);
+
     Film getFilmById(Long id);
 
+    Collection<Film> getFilmsByIds(Collection<Long> ids);
+
     void addNewFilm(Film film);
 
     void updateFilm(Film film);
@@ -20,10 +24,6 @@ public interface FilmStorage {
 
     Collection<Film> getFilmsByDirectorAndSort(Long directorId, Optional<SortParam[]> orderBy);
 
-    Collection<Film> getCommonFilms(Long userId, Long friendId);
-
-    Collection<Film> getMostPopularsFilms(Integer count, Optional<Long> genreId, Optional<Integer> year);
-
-    Collection<Film> searchFilmByParameter(String query, FilmParameter[] sortTypes);
+    void exportFilms(Consumer<Film> consumer);
 
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.storage;
 import ru.yandex.practicum.filmorate.model.Genre;
 
 import java.util.Collection;
+import java.util.Map;
 
 public interface GenreStorage {
     Collection<Genre> getGenres();
@@ -12,5 +13,7 @@ public interface GenreStorage {
 
     Collection<Genre> getFilmGenre(Long filmId);
 
+    Map<Long, Collection<Genre>> getFilmsGenres(Collection<Long> filmIds);
+
     void updateFilmsGenre(Long id, Collection<Genre> genres);
 }
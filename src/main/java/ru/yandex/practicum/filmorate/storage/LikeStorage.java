@@ -1,16 +1,36 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import ru.yandex.practicum.filmorate.model.Like;
+
+import java.time.Instant;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface LikeStorage {
 
-    void addLike(Long filmId, Long userId);
+    boolean addLike(Long filmId, Long userId, Instant createdAt);
+
+    Optional<Instant> removeLike(Long filmId, Long userId);
 
-    void removeLike(Long filmId, Long userId);
+    List<Like> addLikes(List<Like> likes);
+
+    List<Like> removeLikes(List<Like> likes);
 
     Collection<Long> getLikes(Long filmId);
 
-    Collection<Long> getPopularFilmsId(int size);
+    Map<Long, Set<Long>> getFilmsLikes(Collection<Long> filmIds);
+
+    void exportLikes(Consumer<Like> consumer);
+
+    Collection<Like> getUserLikes(Long userId);
+
+    void exportLikesSince(Instant since, Consumer<Like> consumer);
 
     Long getLikesAmount(Long filmId);
+
+    int recalculateLikesAmount();
 }
@@ -2,7 +2,7 @@ package ru.yandex.practicum.filmorate.storage;
 
 import ru.yandex.practicum.filmorate.model.Review;
 
-import java.util.Collection;
+import java.util.List;
 
 public interface ReviewStorage {
     void makeReview(Review review);
@@ -13,9 +13,15 @@ public interface ReviewStorage {
 
     Review getReviewById(Long id);
 
-    Collection<Review> getReviewByFilmId(Long filmId, int count);
+    List<Review> getReviewByFilmId(Long filmId, int count);
 
-    Collection<Review> getAllReviews(int count);
+    List<Review> getAllReviews(int count);
+
+    List<Review> getReviewsPage(int afterUseful, Long afterId, int limit);
+
+    List<Review> getReviewByFilmIdPage(Long filmId, int afterUseful, Long afterId, int limit);
+
+    List<Review> getReviewsByUser(Long userId, Long beforeId, int limit);
 
     void postLike(Long id, Long userId);
 
@@ -24,4 +30,6 @@ public interface ReviewStorage {
     void deleteLike(Long id, Long userId);
 
     void deleteDislike(Long id, Long userId);
+
+    int recalculateUseful();
 }
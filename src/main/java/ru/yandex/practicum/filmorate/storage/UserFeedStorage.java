@@ -3,10 +3,13 @@ package ru.yandex.practicum.filmorate.storage;
 import ru.yandex.practicum.filmorate.model.UserFeed;
 
 import java.util.Collection;
+import java.util.List;
 
 public interface UserFeedStorage {
 
     void addUserFeed(UserFeed feed);
 
+    void addUserFeeds(List<UserFeed> feeds);
+
     Collection<UserFeed> getUserFeed(Long userId);
 }
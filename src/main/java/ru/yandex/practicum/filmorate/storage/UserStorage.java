@@ -3,12 +3,15 @@ package ru.yandex.practicum.filmorate.storage;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.Collection;
+import java.util.function.BiConsumer;
 
 public interface UserStorage {
     Collection<User> getAllUsers();
 
     User getUserById(Long id);
 
+    User getUserWithoutFriends(Long id);
+
     void addNewUser(User user);
 
     void updateUser(User user);
@@ -23,4 +26,12 @@ public interface UserStorage {
 
     Collection<User> getCommonFriends(long userId, long friendId);
 
+    Collection<User> getFriendsPage(long userId, long afterId, int limit);
+
+    Collection<User> getCommonFriendsPage(long userId, long otherUserId, long afterId, int limit);
+
+    Collection<User> getUsersByIds(Collection<Long> ids);
+
+    void exportFriendships(BiConsumer<Long, Long> consumer);
+
 }
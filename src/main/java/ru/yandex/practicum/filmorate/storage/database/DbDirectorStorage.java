@@ -11,9 +11,7 @@ import ru.yandex.practicum.filmorate.storage.DirectorStorage;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 
 
 @Repository
@@ -112,6 +110,23 @@ public class DbDirectorStorage implements DirectorStorage {
 
     }
 
+    @Override
+    public Map<Long, Collection<Director>> getFilmsDirectors(Collection<Long> filmIds) {
+        Map<Long, Collection<Director>> directors = new HashMap<>();
+        if (filmIds.isEmpty()) {
+            return directors;
+        }
+        for (List<Long> chunk : InClause.chunks(filmIds)) {
+            String sql = "SELECT f.film_id, g.director_id, g.director_name FROM director_of_film f " +
+                    "JOIN director g ON g.director_id = f.director_id " +
+                    "WHERE f.FILM_ID IN " + InClause.placeholders(chunk.size());
+            jdbcTemplate.query(sql, rs -> {
+                directors.computeIfAbsent(rs.getLong("film_id"), id -> new ArrayList<>()).add(makeDirector(rs, 0));
+            }, chunk.toArray());
+        }
+        return directors;
+    }
+
     @Override
     public void deleteDirector(Long id) {
         String sql = "DELETE FROM director WHERE director_id = ?";
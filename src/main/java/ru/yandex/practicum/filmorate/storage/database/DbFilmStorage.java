@@ -3,23 +3,33 @@ package ru.yandex.practicum.filmorate.storage.database;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
-import ru.yandex.practicum.filmorate.model.enums.FilmParameter;
 import ru.yandex.practicum.filmorate.model.enums.SortParam;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Repository
 @Qualifier("filmDbStorage")
 public class DbFilmStorage implements FilmStorage {
+    private static final int EXPORT_CHUNK_SIZE = 1000;
+    private static final int EXPORT_FETCH_SIZE = 500;
+
     private final JdbcTemplate jdbcTemplate;
 
 
@@ -34,6 +44,16 @@ public class DbFilmStorage implements FilmStorage {
                 "JOIN mpa AS m ON m.mpa_id = f.mpa_id", this::makeFilm);
     }
 
+    @Override
+    public Collection<Film> getFilmsPage(Long afterId, int limit) {
+        return jdbcTemplate.query("SELECT f.*, m.mpa_name " +
+                "FROM film AS f " +
+                "JOIN mpa AS m ON m.mpa_id = f.mpa_id " +
+                "WHERE f.film_id > ? " +
+                "ORDER BY f.film_id " +
+                "LIMIT ?", this::makeFilm, afterId, limit);
+    }
+
     @Override
     public Film getFilmById(Long id) {
         return jdbcTemplate.queryForObject("SELECT f.*, mpa.mpa_name " +
@@ -43,6 +63,27 @@ public class DbFilmStorage implements FilmStorage {
                 this::makeFilm, id);
     }
 
+    @Override
+    public Collection<Film> getFilmsByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Film> films = new HashMap<>();
+        for (List<Long> chunk : InClause.chunks(ids)) {
+            String sql = "SELECT f.*, mpa.mpa_name " +
+                    "FROM film AS f " +
+                    "LEFT JOIN mpa ON mpa.mpa_id = f.mpa_id " +
+                    "WHERE film_id IN " + InClause.placeholders(chunk.size());
+            for (Film film : jdbcTemplate.query(sql, this::makeFilm, chunk.toArray())) {
+                films.put(film.getId(), film);
+            }
+        }
+        return ids.stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
     @Override
     public void addNewFilm(Film film) {
         SimpleJdbcInsert jdbcInsert = new SimpleJdbcInsert(jdbcTemplate)
@@ -77,34 +118,21 @@ public class DbFilmStorage implements FilmStorage {
         jdbcTemplate.update("DELETE FROM film WHERE film_id = ?", id);
     }
 
-    @Override
-    public Collection<Film> getCommonFilms(Long userId, Long friendId) {
-        String sql = "SELECT DISTINCT f.*, m.mpa_name FROM film f " +
-                "INNER JOIN mpa AS m ON m.mpa_id = f.mpa_id " +
-                "INNER JOIN (SELECT film_id FROM FILM_LIKE WHERE user_id = ?) AS u1_likes " +
-                "ON f.film_id = u1_likes.film_id " +
-                "INNER JOIN (SELECT film_id FROM FILM_LIKE WHERE user_id = ?) AS u2_likes " +
-                "ON f.film_id = u2_likes.film_id";
-        return jdbcTemplate.query(sql, this::makeFilm, userId, friendId);
-    }
-
     @Override
     public Collection<Film> getFilmsByDirectorAndSort(Long directorId, Optional<SortParam[]> orderBy) {
 
         StringBuilder sqlBuilder = new StringBuilder();
-        sqlBuilder.append("SELECT f.*, m.mpa_name, COUNT(l.user_id) AS likes " +
+        sqlBuilder.append("SELECT f.*, m.mpa_name " +
                 "FROM film AS f " +
-                "LEFT JOIN FILM_LIKE AS l ON l.film_id = f.film_id " +
                 "JOIN director_of_film df ON f.film_id = df.film_id " +
                 "JOIN mpa AS m ON m.mpa_id = f.mpa_id ");
         sqlBuilder.append("WHERE df.director_id = ? ");
-        sqlBuilder.append("GROUP BY f.film_id, m.mpa_name ");
         if (orderBy.isPresent()) {
             sqlBuilder.append("ORDER BY ");
             for (SortParam param : orderBy.get()) {
                 switch (param) {
                     case likes:
-                        sqlBuilder.append(" likes ");
+                        sqlBuilder.append(" f.like_count ");
                         break;
                     case year:
                         sqlBuilder.append(" f.released_date ");
@@ -122,73 +150,80 @@ public class DbFilmStorage implements FilmStorage {
         }
     }
 
+    /**
+     * Выгружает каталог пачками по EXPORT_CHUNK_SIZE фильмов в порядке film_id. Каждая пачка читается
+     * тремя запросами на одном соединении, которое возвращается в пул до того, как фильмы уйдут потребителю,
+     * поэтому медленный клиент не держит соединение. Пачки читаются в разных транзакциях: фильм,
+     * добавленный во время выгрузки, попадёт в неё, только если его id больше уже выгруженных.
+     */
     @Override
-    public Collection<Film> getMostPopularsFilms(Integer count, Optional<Long> genreId, Optional<Integer> year) {
-
-        StringBuilder sqlBuilder = new StringBuilder();
-        sqlBuilder.append("SELECT f.*, m.mpa_name, COUNT(l.user_id) AS like_count ")
-                .append("FROM film AS f ")
-                .append("LEFT JOIN film_like AS l ON l.film_id = f.film_id ")
-                .append("LEFT JOIN mpa AS m ON m.mpa_id = f.mpa_id ");
-
-        List<Object> params = new ArrayList<>();
-        sqlBuilder.append("WHERE 1=1 ");
-
-        if (genreId.isPresent()) {
-            sqlBuilder.append("AND EXISTS (SELECT g.genre_id FROM genre_of_film g WHERE g.film_id = f.film_id and g.genre_id = ?) ");
-            params.add(genreId.get());
-        }
-
-        if (year.isPresent()) {
-            sqlBuilder.append("AND EXTRACT(year FROM f.released_date) = ? ");
-            params.add(year.get());
-        }
-
-        sqlBuilder.append("GROUP BY f.film_id, m.mpa_name ")
-                .append("ORDER BY like_count DESC ")
-                .append("LIMIT ?");
-
-        params.add(count);
-        try {
-            String sql = sqlBuilder.toString();
-            return jdbcTemplate.query(sql, this::makeFilm, params.toArray());
-        } catch (DataAccessException e) {
-            throw new IllegalArgumentException(e.getMessage(), e);
-        }
+    public void exportFilms(Consumer<Film> consumer) {
+        long afterId = 0;
+        List<Film> chunk;
+        do {
+            chunk = exportChunk(afterId);
+            chunk.forEach(consumer);
+            if (!chunk.isEmpty()) {
+                afterId = chunk.get(chunk.size() - 1).getId();
+            }
+        } while (chunk.size() == EXPORT_CHUNK_SIZE);
     }
 
-    @Override
-    public Collection<Film> searchFilmByParameter(String query, FilmParameter[] sortTypes) {
-        StringBuilder sqlBuilder = new StringBuilder();
-        sqlBuilder.append("SELECT f.* , m.mpa_name ")
-                .append("FROM film AS f ")
-                .append("LEFT JOIN film_like AS l ON l.film_id = f.film_id ")
-                .append("LEFT JOIN mpa AS m ON m.mpa_id = f.mpa_id ")
-                .append("LEFT JOIN director_of_film AS fd ON f.film_id=fd.film_id ")
-                .append("LEFT JOIN director AS d ON d.director_id=fd.director_id ");
-        List<Object> params = new ArrayList<>();
-
-        sqlBuilder.append("WHERE 1=0 ");
-        for (FilmParameter type : sortTypes) {
-            switch (type) {
-                case director:
-                    sqlBuilder.append(" OR d.director_name LIKE ? ");
-                    params.add('%' + query + '%');
-                    break;
-                case title:
-                    sqlBuilder.append(" OR LOWER(f.name) LIKE ? ");
-                    params.add('%' + query + '%');
-                    break;
+    private List<Film> exportChunk(long afterId) {
+        String filmsSql = "SELECT f.*, m.mpa_name FROM film AS f " +
+                "LEFT JOIN mpa AS m ON m.mpa_id = f.mpa_id " +
+                "WHERE f.film_id > ? " +
+                "ORDER BY f.film_id " +
+                "LIMIT ?";
+        String genresSql = "SELECT gf.film_id, g.genre_id, g.genre_name FROM genre_of_film AS gf " +
+                "JOIN genre AS g ON g.genre_id = gf.genre_id " +
+                "WHERE gf.film_id > ? AND gf.film_id <= ? " +
+                "ORDER BY gf.film_id";
+        String directorsSql = "SELECT df.film_id, d.director_id, d.director_name FROM director_of_film AS df " +
+                "JOIN director AS d ON d.director_id = df.director_id " +
+                "WHERE df.film_id > ? AND df.film_id <= ? " +
+                "ORDER BY df.film_id";
+        return jdbcTemplate.execute((ConnectionCallback<List<Film>>) connection -> {
+            List<Film> films = new ArrayList<>(EXPORT_CHUNK_SIZE);
+            try (PreparedStatement statement = prepareForStreaming(connection, filmsSql, afterId, EXPORT_CHUNK_SIZE);
+                 ResultSet filmRows = statement.executeQuery()) {
+                int rowNum = 0;
+                while (filmRows.next()) {
+                    Film film = makeFilm(filmRows, rowNum++);
+                    film.setLikes(null);
+                    films.add(film);
+                }
             }
+            if (films.isEmpty()) {
+                return films;
+            }
+            long lastId = films.get(films.size() - 1).getId();
+            try (PreparedStatement genres = prepareForStreaming(connection, genresSql, afterId, lastId);
+                 PreparedStatement directors = prepareForStreaming(connection, directorsSql, afterId, lastId);
+                 ResultSet genreRows = genres.executeQuery();
+                 ResultSet directorRows = directors.executeQuery()) {
+                FilmRowsCursor<Genre> genreCursor = new FilmRowsCursor<>(genreRows, (rs, rowNum) ->
+                        new Genre(rs.getLong("genre_id"), rs.getString("genre_name")));
+                FilmRowsCursor<Director> directorCursor = new FilmRowsCursor<>(directorRows, (rs, rowNum) ->
+                        new Director(rs.getLong("director_id"), rs.getString("director_name")));
+                for (Film film : films) {
+                    film.setGenres(genreCursor.next(film.getId()));
+                    film.setDirectors(directorCursor.next(film.getId()));
+                }
+            }
+            return films;
+        });
+    }
+
+    private PreparedStatement prepareForStreaming(Connection connection, String sql, long... params)
+            throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        statement.setFetchSize(EXPORT_FETCH_SIZE);
+        for (int i = 0; i < params.length; i++) {
+            statement.setLong(i + 1, params[i]);
         }
-        sqlBuilder.append("GROUP BY f.film_id ")
-                .append("ORDER BY count(l.user_id) DESC");
-        try {
-            String sql = sqlBuilder.toString();
-            return jdbcTemplate.query(sql, this::makeFilm, params.toArray());
-        } catch (DataAccessException e) {
-            throw new IllegalArgumentException(e.getMessage(), e);
-        }
+        return statement;
     }
 
     private Film makeFilm(ResultSet rs, int rowNum) throws SQLException {
@@ -200,7 +235,34 @@ public class DbFilmStorage implements FilmStorage {
                 .releaseDate(rs.getDate("released_date").toLocalDate())
                 .duration(rs.getInt("duration"))
                 .mpa(new Mpa(rs.getLong("mpa_id"), rs.getString("mpa_name")))
+                .likeCount(rs.getLong("like_count"))
                 .build();
     }
 
-}
\ No newline at end of file
+    /**
+     * Курсор по выборке, упорядоченной по film_id: отдаёт строки очередного фильма,
+     * пропуская строки фильмов, которых уже нет в основной выборке.
+     */
+    private static class FilmRowsCursor<T> {
+        private final ResultSet rs;
+        private final RowMapper<T> mapper;
+        private boolean hasRow;
+
+        FilmRowsCursor(ResultSet rs, RowMapper<T> mapper) throws SQLException {
+            this.rs = rs;
+            this.mapper = mapper;
+            this.hasRow = rs.next();
+        }
+
+        List<T> next(long filmId) throws SQLException {
+            List<T> rows = new ArrayList<>();
+            while (hasRow && rs.getLong("film_id") <= filmId) {
+                if (rs.getLong("film_id") == filmId) {
+                    rows.add(mapper.mapRow(rs, rows.size()));
+                }
+                hasRow = rs.next();
+            }
+            return rows;
+        }
+    }
+}
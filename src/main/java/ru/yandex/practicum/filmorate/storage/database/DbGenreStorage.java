@@ -9,7 +9,7 @@ import ru.yandex.practicum.filmorate.model.Genre;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.Collection;
+import java.util.*;
 
 @Repository
 public class DbGenreStorage implements ru.yandex.practicum.filmorate.storage.GenreStorage {
@@ -42,6 +42,22 @@ public class DbGenreStorage implements ru.yandex.practicum.filmorate.storage.Gen
         return jdbcTemplate.query(sql, this::makeGenre, filmId);
     }
 
+    @Override
+    public Map<Long, Collection<Genre>> getFilmsGenres(Collection<Long> filmIds) {
+        Map<Long, Collection<Genre>> genres = new HashMap<>();
+        if (filmIds.isEmpty()) {
+            return genres;
+        }
+        for (List<Long> chunk : InClause.chunks(filmIds)) {
+            String sql = "SELECT f.film_id, g.* FROM GENRE_OF_FILM f LEFT JOIN GENRE g ON g.GENRE_ID = f.GENRE_ID " +
+                    "WHERE f.FILM_ID IN " + InClause.placeholders(chunk.size());
+            jdbcTemplate.query(sql, rs -> {
+                genres.computeIfAbsent(rs.getLong("film_id"), id -> new ArrayList<>()).add(makeGenre(rs, 0));
+            }, chunk.toArray());
+        }
+        return genres;
+    }
+
     @Override
     public void updateFilmsGenre(Long filmId, Collection<Genre> genres) {
 
@@ -2,15 +2,28 @@ package ru.yandex.practicum.filmorate.storage.database;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.model.Like;
 import ru.yandex.practicum.filmorate.storage.LikeStorage;
 
-import java.util.Collection;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Repository
 @Slf4j
 public class DbLikeStorage implements LikeStorage {
+    private static final String INSERT_LIKE_SQL = "MERGE INTO film_like l " +
+            "USING (VALUES (CAST(? AS INTEGER), CAST(? AS INTEGER), CAST(? AS TIMESTAMP))) " +
+            "AS s (film_id, user_id, created_at) " +
+            "ON l.film_id = s.film_id AND l.user_id = s.user_id " +
+            "WHEN NOT MATCHED THEN INSERT (film_id, user_id, created_at) VALUES (s.film_id, s.user_id, s.created_at)";
+
     private final JdbcTemplate jdbcTemplate;
 
     @Autowired
@@ -18,30 +31,101 @@ public class DbLikeStorage implements LikeStorage {
         this.jdbcTemplate = jdbcTemplate;
     }
 
+    /**
+     * Добавляет лайк, если его ещё нет. Повторный лайк ничего не меняет: MERGE вставляет строку только
+     * при отсутствии пары, а при гонке двух одинаковых лайков второй упирается в первичный ключ film_like.
+     * Счётчик like_count увеличивается только после реальной вставки.
+     * Время лайка createdAt передаёт вызывающий, чтобы в таблице и в событиях о лайке было одно и то же время.
+     */
     @Override
-    public void addLike(Long filmId, Long userId) {
-        String sql = "INSERT INTO film_like (film_id, user_id) VALUES (?, ?)";
+    public boolean addLike(Long filmId, Long userId, Instant createdAt) {
         try {
-            jdbcTemplate.update(sql, filmId, userId);
+            int inserted = jdbcTemplate.update(INSERT_LIKE_SQL, filmId, userId, Timestamp.from(createdAt));
+            if (inserted > 0) {
+                jdbcTemplate.update("UPDATE film SET like_count = like_count + ? WHERE film_id = ?", inserted, filmId);
+            }
             log.info("Пользователь {} добавил лайк фильму {}", userId, filmId);
+            return inserted > 0;
+        } catch (DuplicateKeyException e) {
+            log.info("Лайк пользователя {} фильму {} уже поставлен", userId, filmId);
+            return false;
         } catch (Exception e) {
             log.error("Ошибка при добавлении лайка", e);
             throw new RuntimeException("Ошибка при добавлении лайка");
         }
     }
 
+    /**
+     * Удаляет лайк и возвращает время, когда он был поставлен, или пустой Optional, если лайка не было.
+     */
     @Override
-    public void removeLike(Long filmId, Long userId) {
-        String sql = "DELETE FROM film_like WHERE film_id = ? AND user_id = ?";
+    public Optional<Instant> removeLike(Long filmId, Long userId) {
+        String sql = "SELECT created_at FROM OLD TABLE (DELETE FROM film_like WHERE film_id = ? AND user_id = ?)";
         try {
-            jdbcTemplate.update(sql, filmId, userId);
+            List<Timestamp> deleted = jdbcTemplate.queryForList(sql, Timestamp.class, filmId, userId);
+            if (!deleted.isEmpty()) {
+                jdbcTemplate.update("UPDATE film SET like_count = like_count - ? WHERE film_id = ?",
+                        deleted.size(), filmId);
+            }
             log.info("Пользователь {} удалил лайк у фильма {}", userId, filmId);
+            return deleted.stream().findFirst().map(Timestamp::toInstant);
         } catch (Exception e) {
             log.error("Ошибка при удалении лайка", e);
             throw new RuntimeException("Ошибка при удалении лайка");
         }
     }
 
+    /**
+     * Пакетно добавляет лайки со временем {@link Like#getCreatedAt()} и возвращает те, которых ещё не было.
+     */
+    @Override
+    public List<Like> addLikes(List<Like> likes) {
+        try {
+            int[] counts = jdbcTemplate.batchUpdate(INSERT_LIKE_SQL, likes, likes.size(), (ps, like) -> {
+                ps.setLong(1, like.getFilmId());
+                ps.setLong(2, like.getUserId());
+                ps.setTimestamp(3, Timestamp.from(like.getCreatedAt()));
+            })[0];
+            List<Like> added = changed(likes, counts);
+            updateLikesAmount(added, 1);
+            log.info("Пакетно добавлено {} лайков из {}", added.size(), likes.size());
+            return added;
+        } catch (Exception e) {
+            log.error("Ошибка при пакетном добавлении лайков", e);
+            throw new RuntimeException("Ошибка при пакетном добавлении лайков");
+        }
+    }
+
+    /**
+     * Пакетно удаляет лайки и возвращает те, которые действительно были, вместе со временем их постановки.
+     */
+    @Override
+    public List<Like> removeLikes(List<Like> likes) {
+        String selectSql = "SELECT film_id, user_id, created_at FROM film_like " +
+                "WHERE (film_id, user_id) IN (" + String.join(",", Collections.nCopies(likes.size(), "(?, ?)")) + ")";
+        String deleteSql = "DELETE FROM film_like WHERE film_id = ? AND user_id = ?";
+        try {
+            Map<Like, Instant> createdAt = new HashMap<>();
+            jdbcTemplate.query(selectSql, rs -> {
+                createdAt.put(new Like(rs.getLong("film_id"), rs.getLong("user_id")),
+                        rs.getTimestamp("created_at").toInstant());
+            }, likes.stream().flatMap(like -> Stream.of(like.getFilmId(), like.getUserId())).toArray());
+            int[] counts = jdbcTemplate.batchUpdate(deleteSql, likes, likes.size(), (ps, like) -> {
+                ps.setLong(1, like.getFilmId());
+                ps.setLong(2, like.getUserId());
+            })[0];
+            List<Like> removed = changed(likes, counts).stream()
+                    .map(like -> new Like(like.getFilmId(), like.getUserId(), createdAt.get(like)))
+                    .collect(Collectors.toList());
+            updateLikesAmount(removed, -1);
+            log.info("Пакетно удалено {} лайков из {}", removed.size(), likes.size());
+            return removed;
+        } catch (Exception e) {
+            log.error("Ошибка при пакетном удалении лайков", e);
+            throw new RuntimeException("Ошибка при пакетном удалении лайков");
+        }
+    }
+
     @Override
     public Collection<Long> getLikes(Long filmId) {
         String sql = "SELECT user_id FROM film_like WHERE film_id = ?";
@@ -55,9 +139,71 @@ public class DbLikeStorage implements LikeStorage {
         }
     }
 
+    @Override
+    public Map<Long, Set<Long>> getFilmsLikes(Collection<Long> filmIds) {
+        Map<Long, Set<Long>> likes = new HashMap<>();
+        if (filmIds.isEmpty()) {
+            return likes;
+        }
+        try {
+            for (List<Long> chunk : InClause.chunks(filmIds)) {
+                String sql = "SELECT film_id, user_id FROM film_like WHERE film_id IN " +
+                        InClause.placeholders(chunk.size());
+                jdbcTemplate.query(sql, rs -> {
+                    likes.computeIfAbsent(rs.getLong("film_id"), id -> new HashSet<>()).add(rs.getLong("user_id"));
+                }, chunk.toArray());
+            }
+            log.info("Успешно извлечены лайки для {} фильмов", filmIds.size());
+            return likes;
+        } catch (Exception e) {
+            log.error("Ошибка при извлечении лайков", e);
+            throw new RuntimeException("Ошибка при извлечении лайков");
+        }
+    }
+
+    @Override
+    public void exportLikes(Consumer<Like> consumer) {
+        String sql = "SELECT film_id, user_id, created_at FROM film_like";
+        try {
+            jdbcTemplate.query(sql, rs -> {
+                consumer.accept(new Like(rs.getLong("film_id"), rs.getLong("user_id"),
+                        rs.getTimestamp("created_at").toInstant()));
+            });
+        } catch (Exception e) {
+            log.error("Ошибка при выгрузке лайков", e);
+            throw new RuntimeException("Ошибка при выгрузке лайков");
+        }
+    }
+
+    @Override
+    public Collection<Like> getUserLikes(Long userId) {
+        String sql = "SELECT film_id, user_id, created_at FROM film_like WHERE user_id = ?";
+        try {
+            return jdbcTemplate.query(sql, (rs, rowNum) -> new Like(rs.getLong("film_id"), rs.getLong("user_id"),
+                    rs.getTimestamp("created_at").toInstant()), userId);
+        } catch (Exception e) {
+            log.error("Ошибка при извлечении лайков пользователя", e);
+            throw new RuntimeException("Ошибка при извлечении лайков пользователя");
+        }
+    }
+
+    @Override
+    public void exportLikesSince(Instant since, Consumer<Like> consumer) {
+        String sql = "SELECT film_id, user_id, created_at FROM film_like WHERE created_at >= ?";
+        try {
+            jdbcTemplate.query(sql, rs -> {
+                consumer.accept(new Like(rs.getLong("film_id"), rs.getLong("user_id"),
+                        rs.getTimestamp("created_at").toInstant()));
+            }, Timestamp.from(since));
+        } catch (Exception e) {
+            log.error("Ошибка при выгрузке лайков", e);
+            throw new RuntimeException("Ошибка при выгрузке лайков");
+        }
+    }
+
     @Override
     public Long getLikesAmount(Long filmId) {
-        String sql = "SELECT COUNT(*) FROM film_like WHERE film_id = ?";
+        String sql = "SELECT like_count FROM film WHERE film_id = ?";
         try {
             Long count = jdbcTemplate.queryForObject(sql, Long.class, filmId);
             log.info("Количество лайков для фильма {}: {}", filmId, count);
@@ -68,16 +214,39 @@ public class DbLikeStorage implements LikeStorage {
         }
     }
 
+    private static List<Like> changed(List<Like> likes, int[] counts) {
+        List<Like> changed = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                changed.add(likes.get(i));
+            }
+        }
+        return changed;
+    }
+
+    private void updateLikesAmount(List<Like> likes, int sign) {
+        Map<Long, Integer> deltas = new HashMap<>();
+        for (Like like : likes) {
+            deltas.merge(like.getFilmId(), sign, Integer::sum);
+        }
+        List<Object[]> args = deltas.entrySet().stream()
+                .map(delta -> new Object[]{delta.getValue(), delta.getKey()})
+                .collect(Collectors.toList());
+        jdbcTemplate.batchUpdate("UPDATE film SET like_count = like_count + ? WHERE film_id = ?", args);
+    }
+
     @Override
-    public Collection<Long> getPopularFilmsId(int size) {
-        String sql = "SELECT film_id FROM film_like GROUP BY film_id ORDER BY COUNT(*) DESC LIMIT ?";
+    public int recalculateLikesAmount() {
+        String sql = "UPDATE film f SET like_count = " +
+                "(SELECT COUNT(*) FROM film_like l WHERE l.film_id = f.film_id) " +
+                "WHERE like_count <> (SELECT COUNT(*) FROM film_like l WHERE l.film_id = f.film_id)";
         try {
-            Collection<Long> popularFilmsIds = jdbcTemplate.queryForList(sql, Long.class, size);
-            log.info("Успешно получены популярные фильмы");
-            return popularFilmsIds;
+            int repaired = jdbcTemplate.update(sql);
+            log.info("Пересчитано количество лайков у {} фильмов", repaired);
+            return repaired;
         } catch (Exception e) {
-            log.error("Ошибка при получении популярных фильмов", e);
-            throw new RuntimeException("Ошибка при получении популярных фильмов");
+            log.error("Ошибка при пересчёте количества лайков", e);
+            throw new RuntimeException("Ошибка при пересчёте количества лайков");
         }
     }
-}
\ No newline at end of file
+}
@@ -10,15 +10,16 @@ import ru.yandex.practicum.filmorate.storage.ReviewStorage;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.Collection;
-import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Repository
 public class DbReviewStorage implements ReviewStorage {
+    private static final int LIKE = 1;
+    private static final int DISLIKE = -1;
+
     private final JdbcTemplate jdbcTemplate;
 
     @Autowired
@@ -55,10 +56,8 @@ public class DbReviewStorage implements ReviewStorage {
 
     @Override
     public void deleteReview(Long id) {
-        String sql1 = "DELETE FROM review_likes WHERE review_id = ?";
+        String sql1 = "DELETE FROM review_reaction WHERE review_id = ?";
         jdbcTemplate.update(sql1, id);
-        String sql2 = "DELETE FROM review_dislikes WHERE review_id = ?";
-        jdbcTemplate.update(sql2, id);
         String sql = "DELETE FROM review WHERE review_id = ?";
         jdbcTemplate.update(sql, id);
     }
@@ -70,68 +69,130 @@ public class DbReviewStorage implements ReviewStorage {
     }
 
     @Override
-    public Collection<Review> getReviewByFilmId(Long filmId, int count) {
+    public List<Review> getReviewByFilmId(Long filmId, int count) {
         String sql = "SELECT * FROM review " +
                 "WHERE film_id = ? " +
-                "LIMIT ?; ";
-        Collection<Review> reviews = jdbcTemplate.query(sql, this::buildReview, filmId, count);
-        return reviews.stream().sorted(Comparator.comparingInt(Review::getUseful).reversed())
-                .collect(Collectors.toList());
+                "ORDER BY useful DESC, review_id " +
+                "LIMIT ?";
+        return jdbcTemplate.query(sql, this::buildReview, filmId, count);
+    }
+
+    @Override
+    public List<Review> getAllReviews(int count) {
+        String sql = "SELECT * FROM review " +
+                "ORDER BY useful DESC, review_id " +
+                "LIMIT ?";
+        return jdbcTemplate.query(sql, this::buildReview, count);
+    }
+
+    /**
+     * Страница отзывов в порядке useful DESC, review_id после отзыва с ключом (afterUseful, afterId).
+     * Условие useful <= afterUseful задаёт начало диапазона в индексе, остальное отсекает уже выданные
+     * отзывы с той же полезностью.
+     */
+    @Override
+    public List<Review> getReviewsPage(int afterUseful, Long afterId, int limit) {
+        String sql = "SELECT * FROM review " +
+                "WHERE useful <= ? AND (useful < ? OR review_id > ?) " +
+                "ORDER BY useful DESC, review_id " +
+                "LIMIT ?";
+        return jdbcTemplate.query(sql, this::buildReview, afterUseful, afterUseful, afterId, limit);
     }
 
     @Override
-    public Collection<Review> getAllReviews(int count) {
+    public List<Review> getReviewByFilmIdPage(Long filmId, int afterUseful, Long afterId, int limit) {
         String sql = "SELECT * FROM review " +
+                "WHERE film_id = ? AND useful <= ? AND (useful < ? OR review_id > ?) " +
+                "ORDER BY useful DESC, review_id " +
                 "LIMIT ?";
-        Collection<Review> reviews = jdbcTemplate.query(sql, this::buildReview, count);
-        return reviews.stream().sorted(Comparator.comparingInt(Review::getUseful).reversed())
-                .collect(Collectors.toList());
+        return jdbcTemplate.query(sql, this::buildReview, filmId, afterUseful, afterUseful, afterId, limit);
+    }
+
+    /**
+     * Отзывы пользователя от новых к старым, начиная с review_id меньше beforeId.
+     */
+    @Override
+    public List<Review> getReviewsByUser(Long userId, Long beforeId, int limit) {
+        String sql = "SELECT * FROM review " +
+                "WHERE user_id = ? AND review_id < ? " +
+                "ORDER BY review_id DESC " +
+                "LIMIT ?";
+        return jdbcTemplate.query(sql, this::buildReview, userId, beforeId, limit);
     }
 
     @Override
     public void postLike(Long id, Long userId) {
-        String sql = "INSERT INTO review_likes VALUES (?, ?)";
-        jdbcTemplate.update(sql, id, userId);
+        vote(id, userId, LIKE);
     }
 
     @Override
     public void postDislike(Long id, Long userId) {
-        String sql = "INSERT INTO review_dislikes VALUES (?, ?)";
-        jdbcTemplate.update(sql, id, userId);
+        vote(id, userId, DISLIKE);
     }
 
     @Override
     public void deleteLike(Long id, Long userId) {
-        String sql = "DELETE FROM review_likes WHERE review_id = ? AND user_id = ?";
-        jdbcTemplate.update(sql, id, userId);
+        unvote(id, userId, LIKE);
     }
 
     @Override
     public void deleteDislike(Long id, Long userId) {
-        String sql = "DELETE FROM review_dislikes WHERE review_id = ? AND user_id = ?";
-        jdbcTemplate.update(sql, id, userId);
+        unvote(id, userId, DISLIKE);
+    }
+
+    @Override
+    public int recalculateUseful() {
+        String actual = "(SELECT COALESCE(SUM(rr.vote), 0) FROM review_reaction rr WHERE rr.review_id = r.review_id)";
+        String sql = "UPDATE review r SET useful = " + actual + " WHERE useful <> " + actual;
+        try {
+            int repaired = jdbcTemplate.update(sql);
+            log.info("Пересчитана полезность у {} отзывов", repaired);
+            return repaired;
+        } catch (Exception e) {
+            log.error("Ошибка при пересчёте полезности отзывов", e);
+            throw new RuntimeException("Ошибка при пересчёте полезности отзывов");
+        }
+    }
+
+    /**
+     * Ставит или меняет оценку пользователя одним MERGE. Из OLD TABLE берётся прежняя оценка,
+     * разница с новой сразу прибавляется к review.useful: новая оценка даёт ±1, смена на противоположную ±2.
+     */
+    private void vote(Long id, Long userId, int vote) {
+        String sql = "SELECT vote FROM OLD TABLE (" +
+                "MERGE INTO review_reaction (review_id, user_id, vote) KEY (review_id, user_id) VALUES (?, ?, ?))";
+        int previous = jdbcTemplate.queryForList(sql, Integer.class, id, userId, vote).stream()
+                .findFirst()
+                .orElse(0);
+        changeUseful(id, vote - previous);
+    }
+
+    /**
+     * Снимает оценку, только если она именно такая, как vote, — как раньше удаление из своей таблицы.
+     */
+    private void unvote(Long id, Long userId, int vote) {
+        String sql = "SELECT vote FROM OLD TABLE (" +
+                "DELETE FROM review_reaction WHERE review_id = ? AND user_id = ? AND vote = ?)";
+        int removed = jdbcTemplate.queryForList(sql, Integer.class, id, userId, vote).stream()
+                .mapToInt(Integer::intValue)
+                .sum();
+        changeUseful(id, -removed);
+    }
+
+    private void changeUseful(Long id, int delta) {
+        if (delta != 0) {
+            jdbcTemplate.update("UPDATE review SET useful = useful + ? WHERE review_id = ?", delta, id);
+        }
     }
 
     private Review buildReview(ResultSet rs, int rowNum) throws SQLException {
-        Review review = Review.builder()
+        return Review.builder()
                 .reviewId(rs.getLong("review_id"))
                 .content(rs.getString("content"))
                 .isPositive(rs.getBoolean("is_positive"))
                 .userId(rs.getLong("user_id"))
                 .filmId(rs.getLong("film_id"))
+                .useful(rs.getInt("useful"))
                 .build();
-        review.setUseful(updateUseful(review.getReviewId()));
-        return review;
-    }
-
-    private Integer updateUseful(Long reviewId) {
-        String sqlFromLikes = "SELECT COUNT(*) FROM review_likes WHERE review_id = ?";
-        Integer countLikes = jdbcTemplate.queryForObject(sqlFromLikes, Integer.class, reviewId);
-        String sqlFromDislikes = "SELECT COUNT(*) FROM review_dislikes WHERE review_id = ?";
-        Integer countDislikes = jdbcTemplate.queryForObject(sqlFromDislikes, Integer.class, reviewId);
-        if (countLikes != null && countDislikes != null) {
-            return countLikes - countDislikes;
-        }
-        return 0;
     }
 }
@@ -11,6 +11,7 @@ import ru.yandex.practicum.filmorate.storage.UserFeedStorage;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Collection;
+import java.util.List;
 
 @Slf4j
 @Repository
@@ -30,6 +31,19 @@ public class DbUserFeedStorage implements UserFeedStorage {
                 feed.getEventType().toString(), feed.getOperation().toString());
     }
 
+    @Override
+    public void addUserFeeds(List<UserFeed> feeds) {
+        String sql = "INSERT INTO user_feed ( user_id, entity_id,instant, event_type, operation) " +
+                "VALUES (?, ?, ?, ?, ?)";
+        jdbcTemplate.batchUpdate(sql, feeds, feeds.size(), (ps, feed) -> {
+            ps.setLong(1, feed.getUserId());
+            ps.setLong(2, feed.getEntityId());
+            ps.setObject(3, feed.getTimestamp());
+            ps.setString(4, feed.getEventType().toString());
+            ps.setString(5, feed.getOperation().toString());
+        });
+    }
+
     @Override
     public Collection<UserFeed> getUserFeed(Long userId) {
         String sql = "SELECT * FROM user_feed WHERE user_id = ?";
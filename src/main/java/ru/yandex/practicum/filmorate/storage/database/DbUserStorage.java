@@ -12,6 +12,8 @@ import ru.yandex.practicum.filmorate.storage.UserStorage;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Repository
@@ -27,11 +29,24 @@ public class DbUserStorage implements UserStorage {
     @Override
     public Collection<User> getAllUsers() {
         String sql = "SELECT * FROM \"user\"";
-        return jdbcTemplate.query(sql, this::makeUser);
+        Collection<User> users = jdbcTemplate.query(sql, this::makeUser);
+        Map<Long, Set<Long>> friends = new HashMap<>();
+        exportFriendships((userId, friendId) -> friends.computeIfAbsent(userId, id -> new HashSet<>()).add(friendId));
+        for (User user : users) {
+            user.setFriendsIds(friends.getOrDefault(user.getId(), new HashSet<>()));
+        }
+        return users;
     }
 
     @Override
     public User getUserById(Long id) {
+        User user = getUserWithoutFriends(id);
+        attachFriends(List.of(user));
+        return user;
+    }
+
+    @Override
+    public User getUserWithoutFriends(Long id) {
         return jdbcTemplate.queryForObject("SELECT * FROM \"user\" WHERE user_id = ?", this::makeUser, id);
     }
 
@@ -60,6 +75,11 @@ public class DbUserStorage implements UserStorage {
 
     @Override
     public void deleteUser(Long id) {
+        jdbcTemplate.update("UPDATE film SET like_count = like_count - 1 " +
+                "WHERE film_id IN (SELECT film_id FROM film_like WHERE user_id = ?)", id);
+        jdbcTemplate.update("UPDATE review r SET useful = useful - " +
+                "(SELECT rr.vote FROM review_reaction rr WHERE rr.review_id = r.review_id AND rr.user_id = ?) " +
+                "WHERE review_id IN (SELECT review_id FROM review_reaction WHERE user_id = ?)", id, id);
         jdbcTemplate.update("DELETE FROM \"user\" WHERE user_id = ?", id);
     }
 
@@ -68,12 +88,13 @@ public class DbUserStorage implements UserStorage {
         String sql = "SELECT u.* FROM \"user\" AS u " +
                 "JOIN friendship AS f ON f.FRIENDUSER_ID = u.user_id " +
                 "WHERE f.user_id = ?";
-        return jdbcTemplate.query(sql, this::makeUser, userId);
+        return attachFriends(jdbcTemplate.query(sql, this::makeUser, userId));
     }
 
     @Override
     public User addFriend(long userId, long friendId) {
-        jdbcTemplate.update("INSERT INTO friendship (user_id, friendUser_id) VALUES (?, ?)", userId, friendId);
+        jdbcTemplate.update("MERGE INTO friendship (user_id, friendUser_id) KEY (user_id, friendUser_id) VALUES (?, ?)",
+                userId, friendId);
         return getUserById(userId);
     }
 
@@ -90,22 +111,89 @@ public class DbUserStorage implements UserStorage {
                 "JOIN friendship f2 ON f1.FRIENDUSER_ID = f2.FRIENDUSER_ID " +
                 "JOIN \"user\" AS u ON f1.FRIENDUSER_ID = u.user_id " +
                 "WHERE f1.user_id = ? AND f2.user_id = ?";
-        return jdbcTemplate.query(sql, this::makeUser, userId, friendId);
+        return attachFriends(jdbcTemplate.query(sql, this::makeUser, userId, friendId));
+    }
+
+    @Override
+    public Collection<User> getFriendsPage(long userId, long afterId, int limit) {
+        String sql = "SELECT u.* FROM friendship AS f " +
+                "JOIN \"user\" AS u ON u.user_id = f.friendUser_id " +
+                "WHERE f.user_id = ? AND f.friendUser_id > ? " +
+                "ORDER BY f.friendUser_id " +
+                "LIMIT ?";
+        return jdbcTemplate.query(sql, this::makeUser, userId, afterId, limit);
+    }
+
+    @Override
+    public Collection<User> getCommonFriendsPage(long userId, long otherUserId, long afterId, int limit) {
+        String sql = "SELECT u.* FROM friendship AS f1 " +
+                "JOIN friendship AS f2 ON f2.user_id = ? AND f2.friendUser_id = f1.friendUser_id " +
+                "JOIN \"user\" AS u ON u.user_id = f1.friendUser_id " +
+                "WHERE f1.user_id = ? AND f1.friendUser_id > ? " +
+                "ORDER BY f1.friendUser_id " +
+                "LIMIT ?";
+        return jdbcTemplate.query(sql, this::makeUser, otherUserId, userId, afterId, limit);
+    }
+
+    @Override
+    public Collection<User> getUsersByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, User> users = new HashMap<>();
+        for (List<Long> chunk : InClause.chunks(ids)) {
+            String sql = "SELECT * FROM \"user\" WHERE user_id IN " + InClause.placeholders(chunk.size());
+            for (User user : jdbcTemplate.query(sql, this::makeUser, chunk.toArray())) {
+                users.put(user.getId(), user);
+            }
+        }
+        return ids.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void exportFriendships(BiConsumer<Long, Long> consumer) {
+        String sql = "SELECT user_id, friendUser_id FROM friendship";
+        try {
+            jdbcTemplate.query(sql, rs -> {
+                consumer.accept(rs.getLong("user_id"), rs.getLong("friendUser_id"));
+            });
+        } catch (Exception e) {
+            log.error("Ошибка при выгрузке дружбы", e);
+            throw new RuntimeException("Ошибка при выгрузке дружбы");
+        }
+    }
+
+    private Collection<User> attachFriends(Collection<User> users) {
+        if (users.isEmpty()) {
+            return users;
+        }
+        Map<Long, Set<Long>> friends = new HashMap<>();
+        for (User user : users) {
+            friends.put(user.getId(), new HashSet<>());
+        }
+        for (List<Long> chunk : InClause.chunks(friends.keySet())) {
+            String sql = "SELECT user_id, friendUser_id FROM friendship WHERE user_id IN " +
+                    InClause.placeholders(chunk.size());
+            jdbcTemplate.query(sql, rs -> {
+                friends.get(rs.getLong("user_id")).add(rs.getLong("friendUser_id"));
+            }, chunk.toArray());
+        }
+        for (User user : users) {
+            user.setFriendsIds(friends.get(user.getId()));
+        }
+        return users;
     }
 
     private User makeUser(ResultSet rs, int rowNum) throws SQLException {
-        User user = User.builder()
+        return User.builder()
                 .id(rs.getLong("user_id"))
                 .email(rs.getString("email"))
                 .name(rs.getString("name"))
                 .birthday(rs.getDate("birthday").toLocalDate())
                 .login(rs.getString("login"))
                 .build();
-
-        String sql = "SELECT friendUser_id FROM friendship WHERE user_id = ?";
-        List<Long> friendIds = jdbcTemplate.queryForList(sql, Long.class, user.getId());
-        Set<Long> friends = new HashSet<>(friendIds);
-        user.setFriendsIds(friends);
-        return user;
     }
 }
@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.storage.database;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Условие IN (?, ?, ...) по частям: список id любого размера разбивается на запросы
+ * не больше чем по CHUNK_SIZE параметров.
+ */
+final class InClause {
+    static final int CHUNK_SIZE = 500;
+
+    private InClause() {
+    }
+
+    static <T> List<List<T>> chunks(Collection<T> values) {
+        List<T> list = new ArrayList<>(values);
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < list.size(); from += CHUNK_SIZE) {
+            chunks.add(list.subList(from, Math.min(from + CHUNK_SIZE, list.size())));
+        }
+        return chunks;
+    }
+
+    static String placeholders(int size) {
+        return "(" + String.join(",", Collections.nCopies(size, "?")) + ")";
+    }
+}
@@ -4,15 +4,17 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exceptions.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
-import ru.yandex.practicum.filmorate.model.enums.FilmParameter;
 import ru.yandex.practicum.filmorate.model.enums.SortParam;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
 
 import java.time.LocalDate;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Component
 @Slf4j
@@ -25,6 +27,15 @@ public class InMemoryFilmStorage implements FilmStorage {
         return films.values();
     }
 
+    @Override
+    public Collection<Film> getFilmsPage(Long afterId, int limit) {
+        return films.values().stream()
+                .filter(film -> film.getId() > afterId)
+                .sorted(Comparator.comparing(Film::getId))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
     @Override
     public void addNewFilm(Film film) {
         checkFilmCriteria(film);
@@ -53,6 +64,14 @@ public class InMemoryFilmStorage implements FilmStorage {
         throw new IllegalArgumentException("Фильм с Id " + id + " не найден");
     }
 
+    @Override
+    public Collection<Film> getFilmsByIds(Collection<Long> ids) {
+        return ids.stream()
+                .filter(films::containsKey)
+                .map(films::get)
+                .collect(Collectors.toList());
+    }
+
     @Override
     public void deleteFilm(Long id) {
         if (!films.containsKey(id)) {
@@ -68,21 +87,12 @@ public class InMemoryFilmStorage implements FilmStorage {
 
 
     @Override
-    public Collection<Film> getCommonFilms(Long userId, Long friendId) {
-        return null;
-    }
-
-    @Override
-    public Collection<Film> getMostPopularsFilms(Integer count, Optional<Long> genreId, Optional<Integer> year) {
-        return null;
-    }
-
-    @Override
-    public Collection<Film> searchFilmByParameter(String query, FilmParameter[] sortTypes) {
-        return null;
+    public void exportFilms(Consumer<Film> consumer) {
+        films.values().stream()
+                .sorted(Comparator.comparing(Film::getId))
+                .forEach(consumer);
     }
 
-
     private void checkFilmCriteria(Film film) {
         LocalDate filmBirthday = LocalDate.of(1895, 12, 28);
         if (film.getReleaseDate().isBefore(filmBirthday)) {
@@ -10,6 +10,8 @@ import java.time.LocalDate;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
 
 @Component
 @Slf4j
@@ -63,6 +65,11 @@ public class InMemoryUserStorage implements UserStorage {
         throw new IllegalArgumentException("Пользователь с Id " + id + " не найден");
     }
 
+    @Override
+    public User getUserWithoutFriends(Long id) {
+        return getUserById(id);
+    }
+
     @Override
     public User addFriend(long userId, long friendId) {
         return null;
@@ -78,6 +85,31 @@ public class InMemoryUserStorage implements UserStorage {
         return null;
     }
 
+    @Override
+    public Collection<User> getFriendsPage(long userId, long afterId, int limit) {
+        return null;
+    }
+
+    @Override
+    public Collection<User> getCommonFriendsPage(long userId, long otherUserId, long afterId, int limit) {
+        return null;
+    }
+
+    @Override
+    public Collection<User> getUsersByIds(Collection<Long> ids) {
+        return ids.stream()
+                .filter(users::containsKey)
+                .map(users::get)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void exportFriendships(BiConsumer<Long, Long> consumer) {
+        for (User user : users.values()) {
+            user.getFriendsIds().forEach(friendId -> consumer.accept(user.getId(), friendId));
+        }
+    }
+
     private void checkUserCriteria(User user) {
         if (user.getName() == null || user.getName().isBlank()) {
             user.setName(user.getLogin());
@@ -7,6 +7,7 @@ DROP TABLE IF EXISTS director CASCADE;
 DROP TABLE IF EXISTS mpa CASCADE;
 DROP TABLE IF EXISTS review_likes CASCADE;
 DROP TABLE IF EXISTS review_dislikes CASCADE;
+DROP TABLE IF EXISTS review_reaction CASCADE;
 DROP TABLE IF EXISTS review CASCADE;
 DROP TABLE IF EXISTS film CASCADE;
 DROP TABLE IF EXISTS "user" CASCADE;
@@ -23,8 +24,9 @@ CREATE TABLE IF NOT EXISTS "user"
 
 CREATE TABLE IF NOT EXISTS friendship
 (
-    user_id       integer,
-    friendUser_id integer
+    user_id       integer NOT NULL,
+    friendUser_id integer NOT NULL,
+    PRIMARY KEY (user_id, friendUser_id)
 );
 
 CREATE TABLE IF NOT EXISTS film
@@ -34,13 +36,16 @@ CREATE TABLE IF NOT EXISTS film
     description   varchar,
     released_date date,
     duration      int,
-    mpa_id        integer
+    mpa_id        integer,
+    like_count    integer DEFAULT 0 NOT NULL
 );
 
 CREATE TABLE IF NOT EXISTS film_like
 (
-    film_id integer,
-    user_id integer
+    film_id    integer   NOT NULL,
+    user_id    integer   NOT NULL,
+    created_at timestamp DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    PRIMARY KEY (film_id, user_id)
 );
 
 CREATE TABLE IF NOT EXISTS genre_of_film
@@ -80,22 +85,17 @@ CREATE TABLE IF NOT EXISTS review
     is_positive BOOLEAN,
     user_id     integer,
     film_id     integer,
+    useful      integer DEFAULT 0 NOT NULL,
     FOREIGN KEY (user_id) REFERENCES "user" (user_id) ON DELETE CASCADE,
     FOREIGN KEY (film_id) REFERENCES film (film_id) ON DELETE CASCADE
 );
 
-CREATE TABLE IF NOT EXISTS review_likes
+CREATE TABLE IF NOT EXISTS review_reaction
 (
-    review_id integer,
-    user_id   integer,
-    FOREIGN KEY (review_id) REFERENCES review (review_id) ON DELETE CASCADE,
-    FOREIGN KEY (user_id) REFERENCES "user" (user_id) ON DELETE CASCADE
-);
-
-CREATE TABLE IF NOT EXISTS review_dislikes
-(
-    review_id integer,
-    user_id   integer,
+    review_id integer  NOT NULL,
+    user_id   integer  NOT NULL,
+    vote      smallint NOT NULL CHECK (vote IN (-1, 1)),
+    PRIMARY KEY (review_id, user_id),
     FOREIGN KEY (review_id) REFERENCES review (review_id) ON DELETE CASCADE,
     FOREIGN KEY (user_id) REFERENCES "user" (user_id) ON DELETE CASCADE
 );
@@ -138,3 +138,9 @@ ALTER TABLE director_of_film
 ALTER TABLE director_of_film
     ADD FOREIGN KEY (film_id) REFERENCES film (film_id) ON DELETE CASCADE;
 
+CREATE INDEX IF NOT EXISTS film_like_count_idx ON film (like_count DESC, film_id);
+CREATE INDEX IF NOT EXISTS film_like_created_at_idx ON film_like (created_at);
+CREATE INDEX IF NOT EXISTS friendship_friend_idx ON friendship (friendUser_id, user_id);
+CREATE INDEX IF NOT EXISTS review_film_useful_idx ON review (film_id, useful DESC, review_id);
+CREATE INDEX IF NOT EXISTS review_useful_idx ON review (useful DESC, review_id);
+CREATE INDEX IF NOT EXISTS review_user_idx ON review (user_id, review_id);
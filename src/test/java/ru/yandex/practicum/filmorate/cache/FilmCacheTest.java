@@ -0,0 +1,134 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.event.DirectorEvent;
+import ru.yandex.practicum.filmorate.event.FilmEvent;
+import ru.yandex.practicum.filmorate.event.LikeEvent;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.enums.FilmField;
+import ru.yandex.practicum.filmorate.model.enums.Operation;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FilmCacheTest {
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Function<Long, Film> loader = id -> {
+        loads.incrementAndGet();
+        return film(id, id * 10);
+    };
+
+    @Test
+    void testShouldCountHitsMissesAndEvictions() {
+        FilmCache cache = new FilmCache(2);
+        cache.get(1L, FilmField.defaults(), loader);
+        cache.get(1L, FilmField.defaults(), loader);
+        cache.get(2L, FilmField.defaults(), loader);
+        cache.get(1L, FilmField.defaults(), loader);
+        cache.get(3L, FilmField.defaults(), loader);
+
+        assertEquals(3, loads.get());
+        assertTrue(cache.contains(1L));
+        assertFalse(cache.contains(2L));
+        assertTrue(cache.contains(3L));
+        FilmCache.Stats stats = cache.getStats();
+        assertEquals(2, stats.getSize());
+        assertEquals(2, stats.getHits());
+        assertEquals(3, stats.getMisses());
+        assertEquals(1, stats.getEvictions());
+        assertEquals(0, stats.getInvalidations());
+    }
+
+    @Test
+    void testShouldReturnIsolatedCopiesOfRequestedFields() {
+        FilmCache cache = new FilmCache(10);
+        Film full = cache.get(1L, EnumSet.allOf(FilmField.class), loader);
+        full.getLikes().add(99L);
+        full.getGenres().clear();
+
+        Film cached = cache.get(1L, EnumSet.allOf(FilmField.class), loader);
+        assertEquals(Set.of(1L, 2L), cached.getLikes());
+        assertEquals(1, cached.getGenres().size());
+        assertEquals(10L, cached.getLikeCount());
+
+        Film projected = cache.get(1L, EnumSet.of(FilmField.id, FilmField.name), loader);
+        assertEquals("Фильм 1", projected.getName());
+        assertNull(projected.getLikes());
+        assertNull(projected.getLikeCount());
+        assertNull(projected.getGenres());
+        assertNull(projected.getDirectors());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testShouldInvalidateOnFilmAndLikeEvents() {
+        FilmCache cache = new FilmCache(10);
+        cache.get(1L, FilmField.defaults(), loader);
+        cache.get(2L, FilmField.defaults(), loader);
+        cache.get(3L, FilmField.defaults(), loader);
+
+        cache.onFilm(new FilmEvent(1L, Operation.UPDATE));
+        cache.afterFilm(new FilmEvent(2L, Operation.REMOVE));
+        cache.onLike(new LikeEvent(3L, 7L, Operation.ADD, Instant.now()));
+
+        assertFalse(cache.contains(1L));
+        assertFalse(cache.contains(2L));
+        assertFalse(cache.contains(3L));
+        assertEquals(3, cache.getStats().getInvalidations());
+        cache.get(1L, FilmField.defaults(), loader);
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void testShouldInvalidateOnlyFilmsOfChangedDirector() {
+        FilmCache cache = new FilmCache(10);
+        Function<Long, Film> withDirectors = id -> film(id, 0).toBuilder()
+                .directors(new ArrayList<>(List.of(new Director(id % 2, "Режиссёр " + id % 2))))
+                .build();
+        for (long id = 1; id <= 4; id++) {
+            cache.get(id, FilmField.defaults(), withDirectors);
+        }
+
+        cache.onDirector(new DirectorEvent(1L, Operation.UPDATE));
+
+        assertFalse(cache.contains(1L));
+        assertTrue(cache.contains(2L));
+        assertFalse(cache.contains(3L));
+        assertTrue(cache.contains(4L));
+        assertEquals(2, cache.getStats().getInvalidations());
+    }
+
+    @Test
+    void testShouldNotStoreFilmLoadedBeforeInvalidation() {
+        FilmCache cache = new FilmCache(10);
+        Film film = cache.get(1L, FilmField.defaults(), id -> {
+            cache.invalidate(id);
+            return loader.apply(id);
+        });
+
+        assertEquals(1L, film.getId());
+        assertFalse(cache.contains(1L));
+    }
+
+    private static Film film(Long id, long likeCount) {
+        return Film.builder()
+                .id(id)
+                .name("Фильм " + id)
+                .description("Описание")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(100)
+                .mpa(new Mpa(1L, "G"))
+                .genres(new ArrayList<>(List.of(new Genre(1L, "Комедия"))))
+                .likes(new HashSet<>(Set.of(1L, 2L)))
+                .likeCount(likeCount)
+                .build();
+    }
+}
@@ -0,0 +1,122 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.event.ReviewEvent;
+import ru.yandex.practicum.filmorate.job.ReviewUsefulRepairJob;
+import ru.yandex.practicum.filmorate.model.Review;
+import ru.yandex.practicum.filmorate.model.enums.Operation;
+import ru.yandex.practicum.filmorate.storage.ReviewStorage;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReviewTopCacheTest {
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Map<Long, Integer> useful = new HashMap<>();
+    private final BiFunction<Long, Integer, List<Review>> loader = (filmId, count) -> {
+        loads.incrementAndGet();
+        return useful.entrySet().stream()
+                .map(entry -> review(entry.getKey(), filmId, entry.getValue()))
+                .sorted(Comparator.comparing(Review::getUseful).reversed()
+                        .thenComparing(Review::getReviewId))
+                .limit(count)
+                .collect(Collectors.toList());
+    };
+
+    @Test
+    void testShouldServeTopFromMemoryUntilVoteChangesIt() {
+        ReviewTopCache cache = new ReviewTopCache(3, 10);
+        useful.put(1L, 0);
+        useful.put(2L, 0);
+        useful.put(3L, 0);
+
+        assertEquals(List.of(1L, 2L), ids(cache.getTop(1L, 2, loader)));
+        assertEquals(List.of(1L, 2L, 3L), ids(cache.getTop(1L, 3, loader)));
+        assertEquals(1, loads.get());
+
+        useful.put(3L, 1);
+        cache.onReview(new ReviewEvent(3L, 1L, Operation.UPDATE));
+        assertEquals(List.of(3L, 1L, 2L), ids(cache.getTop(1L, 3, loader)));
+        assertEquals(2, loads.get());
+
+        useful.put(3L, -1);
+        cache.afterReview(new ReviewEvent(3L, 1L, Operation.UPDATE));
+        assertEquals(List.of(1L, 2L, 3L), ids(cache.getTop(1L, 3, loader)));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void testShouldNotLeakCachedEntryOnMiss() {
+        ReviewTopCache cache = new ReviewTopCache(3, 10);
+        useful.put(1L, 0);
+        useful.put(2L, 0);
+
+        List<Review> loaded = cache.getTop(1L, 2, loader);
+        loaded.get(0).setContent("Изменено");
+        loaded.remove(1);
+
+        List<Review> cached = cache.getTop(1L, 2, loader);
+        assertEquals(List.of(1L, 2L), ids(cached));
+        assertEquals("Отзыв 1", cached.get(0).getContent());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testShouldLoadLargeCountsDirectly() {
+        ReviewTopCache cache = new ReviewTopCache(2, 10);
+        useful.put(1L, 0);
+        useful.put(2L, 0);
+        useful.put(3L, 0);
+
+        assertEquals(List.of(1L, 2L, 3L), ids(cache.getTop(1L, 3, loader)));
+        assertEquals(List.of(1L, 2L, 3L), ids(cache.getTop(1L, 3, loader)));
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.getStats().getSize());
+    }
+
+    @Test
+    void testShouldDropAllFilmsWhenRepairJobFixesUseful() {
+        ReviewTopCache cache = new ReviewTopCache(3, 10);
+        ReviewStorage reviewStorage = mock(ReviewStorage.class);
+        ReviewUsefulRepairJob job = new ReviewUsefulRepairJob(reviewStorage, cache);
+        useful.put(1L, 0);
+        cache.getTop(1L, 1, loader);
+        cache.getTop(2L, 1, loader);
+
+        when(reviewStorage.recalculateUseful()).thenReturn(0);
+        job.repair();
+        assertEquals(2, cache.getStats().getSize());
+
+        when(reviewStorage.recalculateUseful()).thenReturn(1);
+        job.repair();
+        assertEquals(0, cache.getStats().getSize());
+        assertEquals(2, cache.getStats().getInvalidations());
+    }
+
+    private static List<Long> ids(List<Review> reviews) {
+        List<Long> ids = new ArrayList<>();
+        reviews.forEach(review -> ids.add(review.getReviewId()));
+        return ids;
+    }
+
+    private static Review review(Long id, Long filmId, int useful) {
+        return Review.builder()
+                .reviewId(id)
+                .content("Отзыв " + id)
+                .isPositive(true)
+                .userId(1L)
+                .filmId(filmId)
+                .useful(useful)
+                .build();
+    }
+}
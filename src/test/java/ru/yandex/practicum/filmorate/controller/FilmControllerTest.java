@@ -13,8 +13,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.yandex.practicum.filmorate.ErrorHandler;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeStatus;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.enums.FilmField;
+import ru.yandex.practicum.filmorate.model.enums.PopularSort;
 import ru.yandex.practicum.filmorate.service.impl.FilmServiceImpl;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
 
@@ -26,6 +30,7 @@ import java.util.Set;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -70,7 +75,7 @@ class FilmControllerTest {
         List<Film> films = Arrays.asList(film1, film2);
 
         String gsonString = objectMapper.writeValueAsString(films);
-        when(filmServiceImpl.getFilms()).thenReturn(films);
+        when(filmServiceImpl.getFilms(FilmField.defaults())).thenReturn(films);
         this.mockMvc.perform(
                         get("/films"))
                 .andExpect(status().isOk())
@@ -163,6 +168,25 @@ class FilmControllerTest {
                 .andDo(print());
     }
 
+    @Test
+    void testShouldAddLikeWithCompactResponse() throws Exception {
+        when(filmServiceImpl.likeFilm(1L, 1L)).thenReturn(new LikeStatus(1L, 5, true));
+        this.mockMvc.perform(put("/films/1/like/1?response=compact"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.filmId").value(1))
+                .andExpect(jsonPath("$.likeCount").value(5))
+                .andExpect(jsonPath("$.liked").value(true))
+                .andDo(print());
+    }
+
+    @Test
+    void testShouldDeleteLikeWithoutBody() throws Exception {
+        when(filmServiceImpl.unlikeFilm(1L, 1L)).thenReturn(new LikeStatus(1L, 4, false));
+        this.mockMvc.perform(delete("/films/1/like/1?response=none"))
+                .andExpect(status().isNoContent())
+                .andExpect(content().string(""));
+    }
+
     @Test
     void testGetFavouriteFilmsShouldReturnMostFavouriteFilms() throws Exception {
         Film film1 = Film.builder()
@@ -202,7 +226,9 @@ class FilmControllerTest {
         film1.setLikes(Set.of(1L));
         film2.setLikes(Set.of(2L, 1L));
 
-        when(controller.getMostPopularsFilms(2, Optional.empty(), Optional.empty())).thenReturn(List.of(film1, film2));
+        when(filmServiceImpl.getMostPopularsFilms(2, Optional.empty(), Optional.empty(), PopularSort.likes,
+                FilmField.defaults()))
+                .thenReturn(List.of(film1, film2));
         this.mockMvc.perform(get("/films/popular?count=2"))
                 .andExpect(status().isOk())
                 .andDo(print());
@@ -218,9 +244,19 @@ class FilmControllerTest {
                 .duration(90)
                 .build();
         film1.setLikes(Set.of(1L, 2L));
-        when(controller.getCommonFilms(1L, 2L)).thenReturn(List.of(film1));
+        when(filmServiceImpl.getCommonFilms(1L, 2L, FilmField.defaults())).thenReturn(List.of(film1));
         this.mockMvc.perform(get("/films/common?userId=1&friendId=2"))
                 .andExpect(status().isOk())
                 .andDo(print());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testShouldRejectCursorWithoutLimit() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new ErrorHandler())
+                .build();
+        mockMvc.perform(get("/films?after=MQ"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(filmServiceImpl);
+    }
+}
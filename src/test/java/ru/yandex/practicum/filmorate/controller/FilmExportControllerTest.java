@@ -0,0 +1,194 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import ru.yandex.practicum.filmorate.ErrorHandler;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.service.FilmService;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class FilmExportControllerTest {
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .build();
+    @Mock
+    private FilmService filmService;
+
+    @Test
+    void testShouldWriteOneFilmPerLine() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<Film> consumer = invocation.getArgument(0);
+            consumer.accept(film(1L, "Крестный отец"));
+            consumer.accept(film(2L, "Начало"));
+            return null;
+        }).when(filmService).exportFilms(any());
+        MockMvc mockMvc = mockMvc(1);
+        MvcResult result = mockMvc.perform(get("/films/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(FilmExportController.NDJSON));
+
+        String body = result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals('\n', body.charAt(body.length() - 1));
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals(1L, first.get("id").asLong());
+        assertEquals("Крестный отец", first.get("name").asText());
+        assertEquals(7L, first.get("likeCount").asLong());
+        assertEquals(1L, first.get("genres").get(0).get("id").asLong());
+        assertEquals(2L, objectMapper.readTree(lines[1]).get("id").asLong());
+    }
+
+    @Test
+    void testShouldRejectExportsOverLimit() throws Exception {
+        mockMvc(0).perform(get("/films/export"))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    void testShouldStopExportAndReleasePermitOnceAfterTimeout() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        AtomicBoolean timedOut = new AtomicBoolean();
+        AtomicBoolean stopped = new AtomicBoolean();
+        doAnswer(invocation -> {
+            Consumer<Film> consumer = invocation.getArgument(0);
+            consumer.accept(film(1L, "Крестный отец"));
+            writing.countDown();
+            // Как чтение из БД: прерывание потока по таймауту выгрузку не останавливает.
+            long waitUntil = System.currentTimeMillis() + 5_000;
+            while (!timedOut.get() && System.currentTimeMillis() < waitUntil) {
+                Thread.onSpinWait();
+            }
+            try {
+                consumer.accept(film(2L, "Начало"));
+            } catch (CancellationException e) {
+                stopped.set(true);
+                throw e;
+            }
+            return null;
+        }).when(filmService).exportFilms(any());
+        FilmExportController controller = controller(1);
+        MockMvc mockMvc = mockMvc(controller);
+
+        MvcResult result = mockMvc.perform(get("/films/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        MockAsyncContext asyncContext = (MockAsyncContext) result.getRequest().getAsyncContext();
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onTimeout(new AsyncEvent(asyncContext));
+        }
+        mockMvc.perform(get("/films/export"))
+                .andExpect(status().isServiceUnavailable());
+        timedOut.set(true);
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (controller.availablePermits() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(stopped.get());
+        assertEquals(1, controller.availablePermits());
+        assertEquals(1, result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n").length);
+    }
+
+    @Test
+    void testShouldReleasePermitWhenExportNeverStarted() throws Exception {
+        FilmExportController controller = controller(1);
+        WebAsyncTask<Void> task = controller.exportFilms(new MockHttpServletResponse());
+        assertEquals(0, controller.availablePermits());
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAsyncSupported(true);
+        StandardServletAsyncWebRequest asyncWebRequest =
+                new StandardServletAsyncWebRequest(request, new MockHttpServletResponse());
+        WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(request);
+        asyncManager.setAsyncWebRequest(asyncWebRequest);
+        asyncManager.setTaskExecutor(new SimpleAsyncTaskExecutor() {
+            @Override
+            public Future<?> submit(Runnable runnable) {
+                return new FutureTask<>(runnable, null);
+            }
+        });
+        asyncManager.startCallableProcessing(task);
+        asyncWebRequest.onComplete(new AsyncEvent(request.getAsyncContext()));
+
+        assertEquals(1, controller.availablePermits());
+        task.getCallable().call();
+        assertEquals(1, controller.availablePermits());
+        verifyNoInteractions(filmService);
+    }
+
+    private FilmExportController controller(int maxConcurrent) {
+        return new FilmExportController(filmService, objectMapper, 10_000, maxConcurrent);
+    }
+
+    private MockMvc mockMvc(int maxConcurrent) {
+        return mockMvc(controller(maxConcurrent));
+    }
+
+    private MockMvc mockMvc(FilmExportController controller) {
+        return MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new ErrorHandler())
+                .build();
+    }
+
+    private static Film film(Long id, String name) {
+        Film film = Film.builder()
+                .id(id)
+                .name(name)
+                .description("Описание")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(100)
+                .mpa(new Mpa(1L, "G"))
+                .genres(List.of(new Genre(1L, "Комедия")))
+                .likeCount(7L)
+                .build();
+        film.setLikes(null);
+        return film;
+    }
+}
@@ -0,0 +1,81 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactBitmapTest {
+
+    @Test
+    void testShouldMatchTreeSetAcrossContainerConversions() {
+        Random random = new Random(42);
+        CompactBitmap bitmap = new CompactBitmap();
+        TreeSet<Long> expected = new TreeSet<>();
+        for (int i = 0; i < 50_000; i++) {
+            long value = random.nextInt(3) == 0 ? random.nextInt(1 << 20) : random.nextInt(10_000);
+            if (random.nextInt(4) == 0) {
+                assertEquals(expected.remove(value), bitmap.remove(value));
+            } else {
+                assertEquals(expected.add(value), bitmap.add(value));
+            }
+        }
+        assertEquals(expected.size(), bitmap.cardinality());
+        assertEquals(new ArrayList<>(expected), toList(bitmap));
+
+        for (Long value : new ArrayList<>(expected)) {
+            assertTrue(bitmap.remove(value));
+        }
+        assertTrue(bitmap.isEmpty());
+        assertFalse(bitmap.contains(1));
+    }
+
+    @Test
+    void testShouldIntersectAndSubtract() {
+        Random random = new Random(7);
+        CompactBitmap first = new CompactBitmap();
+        CompactBitmap second = new CompactBitmap();
+        TreeSet<Long> firstSet = new TreeSet<>();
+        TreeSet<Long> secondSet = new TreeSet<>();
+        for (int i = 0; i < 20_000; i++) {
+            long dense = random.nextInt(6_000);
+            long sparse = random.nextInt(1 << 22);
+            first.add(dense);
+            firstSet.add(dense);
+            second.add(sparse);
+            secondSet.add(sparse);
+            if (i % 2 == 0) {
+                second.add(dense);
+                secondSet.add(dense);
+            }
+        }
+        TreeSet<Long> and = new TreeSet<>(firstSet);
+        and.retainAll(secondSet);
+        TreeSet<Long> andNot = new TreeSet<>(firstSet);
+        andNot.removeAll(secondSet);
+
+        assertEquals(and.size(), first.andCardinality(second));
+        assertEquals(and.size(), second.andCardinality(first));
+        List<Long> actualAnd = new ArrayList<>();
+        first.forEachAnd(second, actualAnd::add);
+        assertEquals(new ArrayList<>(and), actualAnd);
+        List<Long> actualAndNot = new ArrayList<>();
+        first.forEachAndNot(second, actualAndNot::add);
+        assertEquals(new ArrayList<>(andNot), actualAndNot);
+    }
+
+    @Test
+    void testShouldRejectValuesOutOfRange() {
+        CompactBitmap bitmap = new CompactBitmap();
+        assertThrows(IllegalArgumentException.class, () -> bitmap.add(-1));
+        assertThrows(IllegalArgumentException.class, () -> bitmap.add(1L << 32));
+        assertTrue(bitmap.add((1L << 32) - 1));
+    }
+
+    private static List<Long> toList(CompactBitmap bitmap) {
+        List<Long> values = new ArrayList<>();
+        bitmap.forEach(values::add);
+        return values;
+    }
+}
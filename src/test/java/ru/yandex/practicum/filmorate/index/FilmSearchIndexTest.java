@@ -0,0 +1,152 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.yandex.practicum.filmorate.event.DirectorEvent;
+import ru.yandex.practicum.filmorate.event.FilmEvent;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSuggestion;
+import ru.yandex.practicum.filmorate.model.enums.FilmParameter;
+import ru.yandex.practicum.filmorate.model.enums.Operation;
+import ru.yandex.practicum.filmorate.storage.DirectorStorage;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.LongPredicate;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FilmSearchIndexTest {
+    private static final FilmParameter[] BY_TITLE = {FilmParameter.title};
+    private static final FilmParameter[] BY_DIRECTOR = {FilmParameter.director};
+    private static final FilmParameter[] BY_BOTH = {FilmParameter.director, FilmParameter.title};
+
+    private final Director coppola = new Director(1L, "Francis Coppola");
+    private final Director tarantino = new Director(2L, "Quentin Tarantino");
+
+    @Mock
+    private FilmStorage filmStorage;
+    @Mock
+    private DirectorStorage directorStorage;
+    @Mock
+    private LikeIndex likeIndex;
+    @Mock
+    private PopularFilmsLeaderboard leaderboard;
+    private FilmSearchIndex index;
+
+    @BeforeEach
+    void beforeEach() {
+        when(filmStorage.getAllFilms()).thenReturn(List.of(
+                film(1L, "The Godfather"),
+                film(2L, "Godzilla"),
+                film(3L, "Pulp Fiction"),
+                film(4L, "Apocalypse Now"),
+                film(5L, "Abc Bcd")));
+        when(directorStorage.getAllDirectors()).thenReturn(List.of(coppola, tarantino));
+        when(directorStorage.getFilmsDirectors(anyCollection())).thenReturn(Map.of(
+                1L, List.of(coppola),
+                3L, List.of(tarantino),
+                4L, List.of(coppola)));
+        lenient().when(likeIndex.getLikesAmount(anyLong())).thenAnswer(invocation ->
+                Map.of(1L, 5L, 2L, 10L, 3L, 1L).getOrDefault(invocation.<Long>getArgument(0), 0L));
+        index = new FilmSearchIndex(filmStorage, directorStorage, likeIndex, leaderboard);
+        index.rebuild();
+    }
+
+    @Test
+    void testShouldFindByTitleAndDirectorInPopularityOrder() {
+        assertEquals(List.of(2L, 1L), index.search("GOD", BY_TITLE));
+        assertEquals(List.of(1L, 4L), index.search("coppola", BY_DIRECTOR));
+        assertEquals(List.of(1L, 4L), index.search("coppola", BY_BOTH));
+        assertEquals(List.of(2L, 1L, 3L), index.search("o", BY_TITLE).subList(0, 3));
+        assertEquals(List.of(3L), index.search("ul", BY_TITLE));
+        assertEquals(List.of(), index.search("god", BY_DIRECTOR));
+    }
+
+    @Test
+    void testShouldDropTrigramMatchesThatAreNotSubstrings() {
+        assertEquals(List.of(), index.search("abcd", BY_TITLE));
+        assertEquals(List.of(5L), index.search("abc bcd", BY_TITLE));
+    }
+
+    @Test
+    void testShouldFollowFilmAndDirectorEvents() {
+        index.onFilm(new FilmEvent(2L, Operation.REMOVE));
+        assertEquals(List.of(1L), index.search("god", BY_TITLE));
+
+        when(filmStorage.getFilmById(6L)).thenReturn(film(6L, "Godfather II"));
+        when(directorStorage.getFilmsDirector(6L)).thenReturn(List.of(tarantino));
+        index.onFilm(new FilmEvent(6L, Operation.ADD));
+        assertEquals(List.of(1L, 6L), index.search("godf", BY_TITLE));
+        assertEquals(List.of(3L, 6L), index.search("tarantino", BY_DIRECTOR));
+
+        when(directorStorage.getDirectorById(1L)).thenReturn(new Director(1L, "Francis Ford"));
+        index.onDirector(new DirectorEvent(1L, Operation.UPDATE));
+        assertEquals(List.of(), index.search("coppola", BY_DIRECTOR));
+        assertEquals(List.of(1L, 4L), index.search("ford", BY_DIRECTOR));
+
+        index.onDirector(new DirectorEvent(2L, Operation.REMOVE));
+        assertEquals(List.of(), index.search("tarantino", BY_DIRECTOR));
+    }
+
+    @Test
+    void testShouldSuggestByWordPrefixInPopularityOrder() {
+        assertEquals(List.of(2L, 1L), suggestedIds("God", 10));
+        assertEquals(List.of(2L), suggestedIds("god", 1));
+        assertEquals(List.of(1L), suggestedIds("the god", 10));
+        assertEquals(List.of(1L, 4L), suggestedIds("copp", 10));
+        assertEquals(List.of(3L), suggestedIds("quentin tar", 10));
+        assertEquals(List.of(), suggestedIds("odfather", 10));
+        assertEquals(List.of(), suggestedIds("the godz", 10));
+        assertEquals(List.of(), suggestedIds("  ", 10));
+        assertEquals("The Godfather", index.suggest("godf", 10).get(0).getName());
+        verify(leaderboard, never()).forEachByLikes(any());
+    }
+
+    @Test
+    void testShouldScanByPopularityWhenPrefixIsTooCommon() {
+        List<Film> films = new ArrayList<>();
+        for (long id = 1; id <= 2 * FilmSearchIndex.SUGGEST_SORT_LIMIT + 100; id++) {
+            films.add(film(id, (id % 2 == 0 ? "Star " : "Moon ") + id));
+        }
+        when(filmStorage.getAllFilms()).thenReturn(films);
+        index.rebuild();
+        doAnswer(invocation -> {
+            LongPredicate visitor = invocation.getArgument(0);
+            long id = films.size();
+            while (id >= 1 && visitor.test(id)) {
+                id--;
+            }
+            return null;
+        }).when(leaderboard).forEachByLikes(any());
+
+        assertEquals(List.of(2100L, 2098L, 2096L), suggestedIds("star", 3));
+        assertEquals(List.of(2099L, 2097L), suggestedIds("moon", 2));
+        verify(leaderboard, times(2)).forEachByLikes(any());
+        assertEquals(List.of(10L, 100L, 102L), suggestedIds("star 10", 3));
+    }
+
+    private List<Long> suggestedIds(String prefix, int limit) {
+        return index.suggest(prefix, limit).stream().map(FilmSuggestion::getId).collect(Collectors.toList());
+    }
+
+    private static Film film(Long id, String name) {
+        return Film.builder()
+                .id(id)
+                .name(name)
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(100)
+                .build();
+    }
+}
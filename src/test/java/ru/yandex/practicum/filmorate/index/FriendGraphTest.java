@@ -0,0 +1,166 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.yandex.practicum.filmorate.event.FriendEvent;
+import ru.yandex.practicum.filmorate.event.UserEvent;
+import ru.yandex.practicum.filmorate.model.enums.Operation;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@ExtendWith(MockitoExtension.class)
+class FriendGraphTest {
+    /**
+     * 1 → 2, 3, 4; 2 → 1, 5, 6; 3 → 5, 6, 7; 4 → 5.
+     */
+    private static final long[][] SUGGESTION_EDGES = {
+            {1, 2}, {1, 3}, {1, 4},
+            {2, 1}, {2, 5}, {2, 6},
+            {3, 5}, {3, 6}, {3, 7},
+            {4, 5}};
+    /**
+     * Цепочка 1 → 2 → ... → 8 и одностороннее ребро 9 → 1.
+     */
+    private static final long[][] PATH_EDGES = {
+            {1, 2}, {2, 3}, {3, 4}, {4, 5}, {5, 6}, {6, 7}, {7, 8},
+            {9, 1}};
+
+    @Mock
+    private UserStorage userStorage;
+
+    @Test
+    void testShouldRankFriendsOfFriendsByMutualFriends() {
+        FriendGraph graph = graph(SUGGESTION_EDGES, 100, 1000);
+
+        assertArrayEquals(new long[]{5, 6, 7}, graph.suggestFriends(1, 10));
+        assertArrayEquals(new long[]{5, 6}, graph.suggestFriends(1, 2));
+        assertArrayEquals(new long[]{3, 4}, graph.suggestFriends(2, 10));
+        assertArrayEquals(new long[0], graph.suggestFriends(5, 10));
+    }
+
+    @Test
+    void testShouldStopTraversalAtMaxVisits() {
+        FriendGraph graph = graph(SUGGESTION_EDGES, 100, 3);
+
+        assertArrayEquals(new long[]{5, 6}, graph.suggestFriends(1, 10));
+    }
+
+    @Test
+    void testShouldInvalidateOwnAndFollowersSuggestions() {
+        FriendGraph graph = graph(SUGGESTION_EDGES, 100, 1000);
+        graph.suggestFriends(1, 10);
+        graph.suggestFriends(2, 10);
+        graph.suggestFriends(1, 10);
+        assertStats(graph, 2, 1, 2);
+
+        // у 3 новый друг: меняются рекомендации 1, который дружит с 3, но не 2
+        graph.onFriend(new FriendEvent(3L, 8L, Operation.ADD));
+        assertEquals(1, graph.getStats().getSize());
+        assertArrayEquals(new long[]{5, 6, 7, 8}, graph.suggestFriends(1, 10));
+        assertArrayEquals(new long[]{3, 4}, graph.suggestFriends(2, 10));
+        assertStats(graph, 2, 2, 3);
+
+        // 1 сам добавил 5 в друзья: 5 пропадает из его рекомендаций, а рекомендации 2 сбрасываются,
+        // потому что 2 дружит с 1
+        graph.onFriend(new FriendEvent(1L, 5L, Operation.ADD));
+        assertEquals(0, graph.getStats().getSize());
+        assertArrayEquals(new long[]{6, 7, 8}, graph.suggestFriends(1, 10));
+        assertArrayEquals(new long[]{3, 4}, graph.suggestFriends(2, 10));
+
+        graph.onFriend(new FriendEvent(1L, 3L, Operation.REMOVE));
+        assertArrayEquals(new long[]{4}, graph.suggestFriends(2, 10));
+        assertArrayEquals(new long[]{6}, graph.suggestFriends(1, 10));
+
+        graph.onUser(new UserEvent(6L, Operation.REMOVE));
+        assertEquals(0, graph.getStats().getSize());
+        assertArrayEquals(new long[0], graph.suggestFriends(1, 10));
+    }
+
+    @Test
+    void testShouldEvictLeastRecentlyUsedSuggestions() {
+        FriendGraph graph = graph(SUGGESTION_EDGES, 1, 1000);
+        graph.suggestFriends(1, 10);
+        graph.suggestFriends(2, 10);
+        graph.suggestFriends(1, 10);
+
+        assertStats(graph, 1, 0, 3);
+    }
+
+    @Test
+    void testShouldFindShortestPathAlongFriendEdges() {
+        FriendGraph graph = graph(PATH_EDGES, 100, 1000, 6, 1000);
+
+        assertArrayEquals(new long[]{1}, graph.findPath(1, 1));
+        assertArrayEquals(new long[]{1, 2}, graph.findPath(1, 2));
+        assertArrayEquals(new long[]{1, 2, 3, 4}, graph.findPath(1, 4));
+        assertArrayEquals(new long[]{9, 1, 2, 3}, graph.findPath(9, 3));
+        assertArrayEquals(new long[0], graph.findPath(1, 9));
+        assertArrayEquals(new long[0], graph.findPath(4, 1));
+        assertArrayEquals(new long[0], graph.findPath(1, 10));
+    }
+
+    @Test
+    void testShouldRespectMaxHops() {
+        FriendGraph graph = graph(PATH_EDGES, 100, 1000, 6, 1000);
+
+        assertArrayEquals(new long[]{1, 2, 3, 4, 5, 6, 7}, graph.findPath(1, 7));
+        assertArrayEquals(new long[0], graph.findPath(1, 8));
+        assertArrayEquals(new long[]{2, 3, 4, 5, 6, 7, 8}, graph.findPath(2, 8));
+    }
+
+    @Test
+    void testShouldGiveUpAfterMaxVisits() {
+        assertArrayEquals(new long[0], graph(PATH_EDGES, 100, 1000, 6, 2).findPath(1, 4));
+        assertArrayEquals(new long[]{1, 2, 3, 4}, graph(PATH_EDGES, 100, 1000, 6, 3).findPath(1, 4));
+    }
+
+    @Test
+    void testShouldFollowFriendEventsInPathSearch() {
+        FriendGraph graph = graph(PATH_EDGES, 100, 1000, 6, 1000);
+
+        graph.onFriend(new FriendEvent(2L, 5L, Operation.ADD));
+        assertArrayEquals(new long[]{1, 2, 5, 6}, graph.findPath(1, 6));
+
+        graph.onFriend(new FriendEvent(1L, 8L, Operation.ADD));
+        assertArrayEquals(new long[]{9, 1, 8}, graph.findPath(9, 8));
+
+        graph.onFriend(new FriendEvent(2L, 3L, Operation.REMOVE));
+        assertArrayEquals(new long[0], graph.findPath(1, 3));
+        assertArrayEquals(new long[]{1, 2, 5}, graph.findPath(1, 5));
+
+        graph.onUser(new UserEvent(2L, Operation.REMOVE));
+        assertArrayEquals(new long[0], graph.findPath(1, 5));
+    }
+
+    private void assertStats(FriendGraph graph, int size, long hits, long misses) {
+        FriendGraph.Stats stats = graph.getStats();
+        assertEquals(size, stats.getSize());
+        assertEquals(hits, stats.getHits());
+        assertEquals(misses, stats.getMisses());
+    }
+
+    private FriendGraph graph(long[][] edges, int cacheSize, int maxVisits) {
+        return graph(edges, cacheSize, maxVisits, 6, 1000);
+    }
+
+    private FriendGraph graph(long[][] edges, int cacheSize, int maxVisits, int pathMaxHops, int pathMaxVisits) {
+        doAnswer(invocation -> {
+            BiConsumer<Long, Long> consumer = invocation.getArgument(0);
+            for (long[] edge : edges) {
+                consumer.accept(edge[0], edge[1]);
+            }
+            return null;
+        }).when(userStorage).exportFriendships(any());
+        FriendGraph graph = new FriendGraph(userStorage, cacheSize, maxVisits, pathMaxHops, pathMaxVisits);
+        graph.rebuild();
+        return graph;
+    }
+}
@@ -0,0 +1,86 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.yandex.practicum.filmorate.event.FilmEvent;
+import ru.yandex.practicum.filmorate.event.LikeEvent;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.enums.Operation;
+import ru.yandex.practicum.filmorate.storage.LikeStorage;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@ExtendWith(MockitoExtension.class)
+class LikeIndexTest {
+    private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+
+    @Mock
+    private LikeStorage likeStorage;
+    private LikeIndex likeIndex;
+
+    @BeforeEach
+    void beforeEach() {
+        // фильм 1: пользователи 1, 2, 3; фильм 2: 1, 2; фильм 3: 3; фильм 4: 1
+        List<Like> likes = List.of(
+                new Like(1L, 1L, NOW), new Like(1L, 2L, NOW), new Like(1L, 3L, NOW),
+                new Like(2L, 1L, NOW), new Like(2L, 2L, NOW),
+                new Like(3L, 3L, NOW),
+                new Like(4L, 1L, NOW));
+        doAnswer(invocation -> {
+            Consumer<Like> consumer = invocation.getArgument(0);
+            likes.forEach(consumer);
+            return null;
+        }).when(likeStorage).exportLikes(any());
+        likeIndex = new LikeIndex(likeStorage);
+        likeIndex.rebuild();
+    }
+
+    @Test
+    void testShouldCountLikesAndListLikers() {
+        assertEquals(3, likeIndex.getLikesAmount(1L));
+        assertEquals(0, likeIndex.getLikesAmount(5L));
+        assertEquals(Map.of(1L, Set.of(1L, 2L, 3L), 3L, Set.of(3L)), likeIndex.getFilmsLikes(List.of(1L, 3L, 5L)));
+    }
+
+    @Test
+    void testShouldAnswerUserQueriesFromBitmaps() {
+        assertEquals(List.of(1L, 2L, 4L), likeIndex.getCommonFilms(1L, 1L));
+        assertEquals(List.of(1L, 2L), likeIndex.getCommonFilms(1L, 2L));
+        assertEquals(List.of(), likeIndex.getCommonFilms(1L, 5L));
+        assertEquals(Optional.of(2L), likeIndex.findMostSimilarUser(1L));
+        assertEquals(Optional.of(1L), likeIndex.findMostSimilarUser(3L));
+        assertEquals(Optional.empty(), likeIndex.findMostSimilarUser(5L));
+        assertEquals(List.of(4L), likeIndex.getFilmsLikedOnlyBy(1L, 2L));
+        assertEquals(List.of(1L, 3L), likeIndex.getFilmsLikedOnlyBy(3L, 5L));
+        assertArrayEquals(new long[]{1, 3}, likeIndex.filterLikedBy(1L, new long[]{1, 3, 4}, 5));
+        assertArrayEquals(new long[]{1}, likeIndex.filterLikedBy(1L, new long[]{1, 3, 4}, 1));
+        assertArrayEquals(new long[0], likeIndex.filterLikedBy(5L, new long[]{1}, 5));
+    }
+
+    @Test
+    void testShouldFollowLikeAndFilmEvents() {
+        likeIndex.onLike(new LikeEvent(3L, 1L, Operation.ADD, NOW));
+        likeIndex.onLike(new LikeEvent(1L, 2L, Operation.REMOVE, NOW));
+        assertEquals(2, likeIndex.getLikesAmount(3L));
+        assertEquals(2, likeIndex.getLikesAmount(1L));
+        assertEquals(List.of(2L), likeIndex.getCommonFilms(1L, 2L));
+
+        likeIndex.onFilm(new FilmEvent(1L, Operation.REMOVE));
+        assertEquals(0, likeIndex.getLikesAmount(1L));
+        assertEquals(List.of(2L, 3L, 4L), likeIndex.getCommonFilms(1L, 1L));
+        assertEquals(List.of(3L), likeIndex.getCommonFilms(3L, 3L));
+
+        likeIndex.onLike(new LikeEvent(3L, 3L, Operation.REMOVE, NOW));
+        assertEquals(1, likeIndex.getLikesAmount(3L));
+        assertEquals(Optional.empty(), likeIndex.findMostSimilarUser(3L));
+    }
+}
@@ -0,0 +1,206 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.yandex.practicum.filmorate.event.LikeEvent;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.enums.Operation;
+import ru.yandex.practicum.filmorate.model.enums.PopularSort;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.LikeStorage;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PopularFilmsLeaderboardTest {
+    private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+
+    @Mock
+    private FilmStorage filmStorage;
+    @Mock
+    private GenreStorage genreStorage;
+    @Mock
+    private LikeStorage likeStorage;
+    private LikeIndex likeIndex;
+    private PopularFilmsLeaderboard leaderboard;
+
+    @BeforeEach
+    void beforeEach() {
+        likeIndex = new LikeIndex(likeStorage);
+        leaderboard = new PopularFilmsLeaderboard(filmStorage, genreStorage, likeStorage, likeIndex, 24);
+    }
+
+    @Test
+    void testShouldFilterByGenreAndYearTogether() {
+        Map<Long, Collection<Genre>> genres = Map.of(
+                1L, List.of(genre(1L)),
+                2L, List.of(genre(1L)),
+                3L, List.of(genre(2L)),
+                4L, List.of(genre(1L), genre(2L)));
+        List<Like> likes = new ArrayList<>();
+        likes.addAll(likes(1L, 1));
+        likes.addAll(likes(2L, 5));
+        likes.addAll(likes(3L, 10));
+        likes.addAll(likes(4L, 3));
+        rebuild(List.of(film(1L, 2000), film(2L, 2001), film(3L, 2000), film(4L, 2000)), genres, likes);
+
+        assertEquals(List.of(4L, 1L), top(Optional.of(1L), Optional.of(2000)));
+        assertEquals(List.of(3L, 4L), top(Optional.of(2L), Optional.of(2000)));
+        assertEquals(List.of(), top(Optional.of(2L), Optional.of(2001)));
+        assertEquals(List.of(2L, 4L, 1L), top(Optional.of(1L), Optional.empty()));
+        assertEquals(List.of(3L, 4L, 1L), top(Optional.empty(), Optional.of(2000)));
+        assertEquals(List.of(3L), leaderboard.getTop(1, Optional.empty(), Optional.empty(), PopularSort.likes));
+    }
+
+    @Test
+    void testShouldTakeLikeCountsFromLikeIndex() {
+        List<Like> likes = new ArrayList<>();
+        likes.addAll(likes(1L, 2));
+        likes.addAll(likes(2L, 1));
+        rebuild(List.of(film(1L, 2000), film(2L, 2000)), Map.of(), likes);
+        assertEquals(List.of(1L, 2L), top(Optional.empty(), Optional.empty()));
+
+        like(2L, 10L, Operation.ADD);
+        like(2L, 11L, Operation.ADD);
+        assertEquals(List.of(2L, 1L), top(Optional.empty(), Optional.empty()));
+
+        like(2L, 10L, Operation.REMOVE);
+        like(2L, 1L, Operation.REMOVE);
+        assertEquals(List.of(1L, 2L), top(Optional.empty(), Optional.empty()));
+        assertEquals(1, likeIndex.getLikesAmount(2L));
+    }
+
+    @Test
+    void testShouldRestoreHotScoreExactlyAfterLikeAndUnlike() {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        List<Like> likes = new ArrayList<>();
+        for (long filmId = 1; filmId <= 2; filmId++) {
+            likes.add(new Like(filmId, 1L, now.minus(Duration.ofMinutes(185))));
+            likes.add(new Like(filmId, 2L, now.minus(Duration.ofMinutes(301))));
+            likes.add(new Like(filmId, 3L, now.minus(Duration.ofDays(3))));
+        }
+        rebuild(List.of(film(1L, 2000), film(2L, 2000)), Map.of(), likes);
+        assertEquals(List.of(1L, 2L), hotTop());
+
+        Random random = new Random(7);
+        for (int i = 0; i < 100; i++) {
+            Instant likedAt = now.minusSeconds(random.nextInt(7 * 24 * 3600));
+            like(1L, 100L + i, Operation.ADD, likedAt);
+            like(1L, 100L + i, Operation.REMOVE, likedAt);
+        }
+        assertEquals(List.of(1L, 2L), hotTop(), "оценка первого фильма не должна уменьшиться");
+
+        Instant likedAt = now.minus(Duration.ofMinutes(1));
+        like(2L, 50L, Operation.ADD, likedAt);
+        assertEquals(List.of(2L, 1L), hotTop());
+        like(2L, 50L, Operation.REMOVE, likedAt);
+        assertEquals(List.of(1L, 2L), hotTop(), "оценка второго фильма не должна увеличиться");
+
+        like(1L, 1L, Operation.REMOVE, now.minus(Duration.ofMinutes(185)));
+        like(1L, 2L, Operation.REMOVE, now.minus(Duration.ofMinutes(301)));
+        like(1L, 3L, Operation.REMOVE, now.minus(Duration.ofDays(3)));
+        assertEquals(List.of(2L, 1L), hotTop());
+    }
+
+    @Test
+    void testShouldHalveLikeWeightEveryHalfLife() {
+        long origin = Instant.parse("2024-01-01T00:00:00Z").getEpochSecond();
+        Instant start = Instant.ofEpochSecond(origin);
+        BigInteger fresh = leaderboard.hotWeight(start, origin);
+
+        assertEquals(BigInteger.ONE.shiftLeft(32), fresh);
+        assertEquals(fresh.shiftLeft(1), leaderboard.hotWeight(start.plus(Duration.ofHours(24)), origin));
+        assertEquals(fresh.shiftLeft(10), leaderboard.hotWeight(start.plus(Duration.ofHours(240)), origin));
+        BigInteger middle = leaderboard.hotWeight(start.plus(Duration.ofHours(12)), origin);
+        assertTrue(middle.compareTo(fresh) > 0 && middle.compareTo(fresh.shiftLeft(1)) < 0);
+        assertEquals(middle.shiftLeft(1), leaderboard.hotWeight(start.plus(Duration.ofHours(36)), origin));
+        assertEquals(BigInteger.ZERO, leaderboard.hotWeight(start.minusSeconds(1), origin));
+    }
+
+    @Test
+    void testShouldRankTwoOlderLikesEqualToOneNewer() {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS).minus(Duration.ofHours(1));
+        Instant dayAgo = now.minus(Duration.ofHours(24));
+        List<Like> likes = List.of(
+                new Like(1L, 1L, dayAgo), new Like(1L, 2L, dayAgo),
+                new Like(2L, 1L, now),
+                new Like(3L, 1L, dayAgo), new Like(3L, 2L, dayAgo), new Like(3L, 3L, dayAgo));
+        rebuild(List.of(film(1L, 2000), film(2L, 2000), film(3L, 2000)), Map.of(), likes);
+
+        assertEquals(List.of(3L, 1L, 2L), hotTop());
+        assertEquals(List.of(3L, 1L, 2L), top(Optional.empty(), Optional.empty()));
+    }
+
+    private List<Long> hotTop() {
+        return leaderboard.getTop(10, Optional.empty(), Optional.empty(), PopularSort.hot);
+    }
+
+    /**
+     * Событие лайка в том порядке, в котором его получают слушатели: сначала индекс лайков, затем рейтинг.
+     */
+    private void like(Long filmId, Long userId, Operation operation) {
+        like(filmId, userId, operation, NOW);
+    }
+
+    private void like(Long filmId, Long userId, Operation operation, Instant likedAt) {
+        LikeEvent event = new LikeEvent(filmId, userId, operation, likedAt);
+        likeIndex.onLike(event);
+        leaderboard.onLike(event);
+    }
+
+    private List<Long> top(Optional<Long> genreId, Optional<Integer> year) {
+        return leaderboard.getTop(10, genreId, year, PopularSort.likes);
+    }
+
+    private void rebuild(List<Film> films, Map<Long, Collection<Genre>> genres, List<Like> likes) {
+        when(filmStorage.getAllFilms()).thenReturn(films);
+        when(genreStorage.getFilmsGenres(anyCollection())).thenReturn(genres);
+        doAnswer(invocation -> {
+            Consumer<Like> consumer = invocation.getArgument(0);
+            likes.forEach(consumer);
+            return null;
+        }).when(likeStorage).exportLikes(any());
+        likeIndex.rebuild();
+        leaderboard.rebuild();
+    }
+
+    private static List<Like> likes(Long filmId, int amount) {
+        List<Like> likes = new ArrayList<>();
+        for (long userId = 1; userId <= amount; userId++) {
+            likes.add(new Like(filmId, userId, NOW));
+        }
+        return likes;
+    }
+
+    private static Film film(Long id, int year) {
+        return Film.builder()
+                .id(id)
+                .name("Фильм " + id)
+                .releaseDate(LocalDate.of(year, 1, 1))
+                .duration(100)
+                .build();
+    }
+
+    private static Genre genre(Long id) {
+        return Genre.builder().id(id).name("Жанр " + id).build();
+    }
+}
@@ -0,0 +1,116 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.yandex.practicum.filmorate.event.FilmEvent;
+import ru.yandex.practicum.filmorate.event.LikeEvent;
+import ru.yandex.practicum.filmorate.model.enums.Operation;
+import ru.yandex.practicum.filmorate.model.enums.TrendingWindow;
+import ru.yandex.practicum.filmorate.storage.LikeStorage;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ExtendWith(MockitoExtension.class)
+class TrendingFilmsCounterTest {
+    private static final Instant NOW = Instant.parse("2024-01-10T12:30:00Z");
+
+    @Mock
+    private LikeStorage likeStorage;
+    private TrendingFilmsCounter counter;
+
+    @BeforeEach
+    void beforeEach() {
+        counter = new TrendingFilmsCounter(likeStorage);
+        counter.advance(NOW);
+    }
+
+    @Test
+    void testShouldRankFilmsByLikesInsideEachWindow() {
+        like(1L, 1L, hoursAgo(1));
+        like(1L, 2L, hoursAgo(1));
+        like(2L, 1L, hoursAgo(48));
+        like(2L, 2L, hoursAgo(48));
+        like(2L, 3L, hoursAgo(48));
+        like(3L, 1L, NOW);
+
+        assertEquals(List.of(1L, 3L), top(TrendingWindow.DAY));
+        assertEquals(List.of(2L, 1L, 3L), top(TrendingWindow.WEEK));
+        assertEquals(List.of(2L, 1L), counter.getTop(TrendingWindow.WEEK, 2));
+    }
+
+    @Test
+    void testShouldTakeUnlikeFromTheSameBucket() {
+        like(1L, 1L, hoursAgo(2));
+        like(2L, 1L, hoursAgo(2));
+        like(2L, 2L, hoursAgo(30));
+
+        unlike(1L, 1L, hoursAgo(2));
+        assertEquals(List.of(2L), top(TrendingWindow.DAY));
+        assertEquals(List.of(2L), top(TrendingWindow.WEEK));
+
+        unlike(2L, 2L, hoursAgo(30));
+        assertEquals(List.of(2L), top(TrendingWindow.DAY));
+        unlike(2L, 1L, hoursAgo(2));
+        assertEquals(List.of(), top(TrendingWindow.DAY));
+        assertEquals(List.of(), top(TrendingWindow.WEEK));
+
+        like(3L, 1L, hoursAgo(24 * 8));
+        unlike(3L, 1L, hoursAgo(24 * 8));
+        assertEquals(List.of(), top(TrendingWindow.WEEK));
+    }
+
+    @Test
+    void testShouldAgeLikesOutOfWindows() {
+        like(1L, 1L, hoursAgo(23));
+        like(2L, 1L, NOW);
+        assertEquals(List.of(1L, 2L), top(TrendingWindow.DAY));
+
+        counter.advance(NOW.plus(Duration.ofHours(1)));
+        assertEquals(List.of(2L), top(TrendingWindow.DAY));
+        assertEquals(List.of(1L, 2L), top(TrendingWindow.WEEK));
+
+        like(3L, 1L, NOW.plus(Duration.ofHours(24)));
+        assertEquals(List.of(3L), top(TrendingWindow.DAY));
+        assertEquals(List.of(1L, 2L, 3L), top(TrendingWindow.WEEK));
+
+        counter.advance(NOW.plus(Duration.ofHours(24 * 7)));
+        assertEquals(List.of(), top(TrendingWindow.DAY));
+        assertEquals(List.of(3L), top(TrendingWindow.WEEK));
+
+        counter.advance(NOW.plus(Duration.ofDays(30)));
+        assertEquals(List.of(), top(TrendingWindow.WEEK));
+    }
+
+    @Test
+    void testShouldDropRemovedFilm() {
+        like(1L, 1L, NOW);
+        like(2L, 1L, NOW);
+        counter.onFilm(new FilmEvent(1L, Operation.REMOVE));
+
+        assertEquals(List.of(2L), top(TrendingWindow.DAY));
+        assertEquals(List.of(2L), top(TrendingWindow.WEEK));
+    }
+
+    private List<Long> top(TrendingWindow window) {
+        return counter.getTop(window, 10);
+    }
+
+    private void like(Long filmId, Long userId, Instant likedAt) {
+        counter.onLike(new LikeEvent(filmId, userId, Operation.ADD, likedAt));
+    }
+
+    private void unlike(Long filmId, Long userId, Instant likedAt) {
+        counter.onLike(new LikeEvent(filmId, userId, Operation.REMOVE, likedAt));
+    }
+
+    private static Instant hoursAgo(int hours) {
+        return NOW.minus(Duration.ofHours(hours));
+    }
+}
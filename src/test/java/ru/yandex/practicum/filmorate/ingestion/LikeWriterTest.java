@@ -0,0 +1,190 @@
+package ru.yandex.practicum.filmorate.ingestion;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.yandex.practicum.filmorate.event.LikeEvent;
+import ru.yandex.practicum.filmorate.exceptions.ServiceUnavailableException;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.UserFeed;
+import ru.yandex.practicum.filmorate.model.enums.Operation;
+import ru.yandex.practicum.filmorate.storage.LikeStorage;
+import ru.yandex.practicum.filmorate.storage.UserFeedStorage;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LikeWriterTest {
+    @Mock
+    private LikeStorage likeStorage;
+    @Mock
+    private UserFeedStorage feedStorage;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    private LikeWriter writer;
+
+    @AfterEach
+    void afterEach() throws InterruptedException {
+        if (writer != null) {
+            writer.stop();
+        }
+    }
+
+    @Test
+    void testShouldWriteDirectlyWhenWriteBehindIsDisabled() {
+        writer = writer(false, LikeWriter.Ack.commit, 10, 10);
+        when(likeStorage.addLike(eq(1L), eq(2L), any())).thenReturn(true);
+
+        writer.addLike(1L, 2L);
+
+        verify(likeStorage).addLike(eq(1L), eq(2L), any());
+        verify(feedStorage).addUserFeed(any());
+        verify(eventPublisher).publishEvent(any(LikeEvent.class));
+        verify(transactionManager).commit(any());
+        verifyNoMoreInteractions(likeStorage);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testShouldCoalesceCommandsForOnePairInsideBatch() throws InterruptedException {
+        writer = writer(true, LikeWriter.Ack.enqueue, 10, 3);
+        when(likeStorage.removeLikes(anyList())).thenReturn(List.of());
+        when(likeStorage.addLikes(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        writer.addLike(1L, 1L);
+        writer.removeLike(1L, 1L);
+        writer.addLike(2L, 1L);
+        writer.stop();
+
+        verify(likeStorage).removeLikes(List.of(new Like(1L, 1L)));
+        verify(likeStorage).addLikes(List.of(new Like(2L, 1L)));
+        ArgumentCaptor<List<UserFeed>> feeds = ArgumentCaptor.forClass(List.class);
+        verify(feedStorage).addUserFeeds(feeds.capture());
+        assertEquals(List.of(Operation.ADD, Operation.REMOVE, Operation.ADD),
+                feeds.getValue().stream().map(UserFeed::getOperation).collect(Collectors.toList()));
+        verify(eventPublisher, times(1)).publishEvent(any(LikeEvent.class));
+        verify(likeStorage, never()).addLike(any(), any(), any());
+
+        LikeWriter.Stats stats = writer.getStats();
+        assertEquals(3, stats.getEnqueued());
+        assertEquals(3, stats.getWritten());
+        assertEquals(1, stats.getBatches());
+        assertEquals(0, stats.getFailures());
+    }
+
+    @Test
+    void testShouldRetryFailedBatchOneByOneInOrder() throws InterruptedException {
+        writer = writer(true, LikeWriter.Ack.enqueue, 10, 2);
+        when(likeStorage.addLikes(anyList())).thenThrow(new IllegalStateException("batch"));
+        when(likeStorage.addLike(eq(1L), eq(1L), any())).thenReturn(true);
+        when(likeStorage.addLike(eq(2L), eq(1L), any())).thenThrow(new IllegalStateException("single"));
+
+        writer.addLike(1L, 1L);
+        writer.addLike(2L, 1L);
+        writer.stop();
+
+        InOrder inOrder = inOrder(likeStorage);
+        inOrder.verify(likeStorage).addLikes(anyList());
+        inOrder.verify(likeStorage).addLike(eq(1L), eq(1L), any());
+        inOrder.verify(likeStorage).addLike(eq(2L), eq(1L), any());
+        assertEquals(1, writer.getStats().getFailures());
+        assertEquals(1, writer.getStats().getWritten());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testShouldReturnOnlyAfterCommitWhenAckIsCommit() {
+        writer = writer(true, LikeWriter.Ack.commit, 10, 1);
+        when(likeStorage.addLikes(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        writer.addLike(1L, 1L);
+
+        verify(transactionManager).commit(any());
+        ArgumentCaptor<List<Like>> added = ArgumentCaptor.forClass(List.class);
+        verify(likeStorage).addLikes(added.capture());
+        assertEquals(List.of(new Like(1L, 1L)), added.getValue());
+        ArgumentCaptor<LikeEvent> event = ArgumentCaptor.forClass(LikeEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertNotNull(added.getValue().get(0).getCreatedAt());
+        assertEquals(added.getValue().get(0).getCreatedAt(), event.getValue().getLikedAt());
+    }
+
+    @Test
+    void testShouldPropagateWriteFailureWhenAckIsCommit() {
+        writer = writer(true, LikeWriter.Ack.commit, 10, 1);
+        when(likeStorage.addLikes(anyList())).thenThrow(new IllegalStateException("batch"));
+        when(likeStorage.addLike(eq(1L), eq(1L), any())).thenThrow(new IllegalStateException("single"));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> writer.addLike(1L, 1L));
+        assertEquals("single", e.getMessage());
+    }
+
+    @Test
+    void testShouldReportUnavailableWhenCommitIsNotConfirmedInTime() throws InterruptedException {
+        writer = writer(true, LikeWriter.Ack.commit, 10, 1, 50);
+        CountDownLatch release = new CountDownLatch(1);
+        when(likeStorage.addLikes(anyList())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return invocation.getArgument(0);
+        });
+
+        assertThrows(ServiceUnavailableException.class, () -> writer.addLike(1L, 1L));
+        release.countDown();
+        writer.stop();
+
+        verify(likeStorage).addLikes(List.of(new Like(1L, 1L)));
+        assertEquals(1, writer.getStats().getWritten());
+    }
+
+    @Test
+    void testShouldRejectInsteadOfWritingAroundFullQueue() throws InterruptedException {
+        writer = writer(true, LikeWriter.Ack.enqueue, 1, 1);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(likeStorage.addLikes(anyList())).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return invocation.getArgument(0);
+        });
+
+        writer.addLike(1L, 1L);
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        writer.addLike(2L, 1L);
+        assertThrows(ServiceUnavailableException.class, () -> writer.addLike(3L, 1L));
+        release.countDown();
+        writer.stop();
+
+        verify(likeStorage, never()).addLike(any(), any(), any());
+        verify(likeStorage, times(2)).addLikes(anyList());
+        assertEquals(1, writer.getStats().getOverflows());
+        assertThrows(ServiceUnavailableException.class, () -> writer.addLike(4L, 1L));
+    }
+
+    private LikeWriter writer(boolean enabled, LikeWriter.Ack ack, int capacity, int batchSize) {
+        return writer(enabled, ack, capacity, batchSize, 5000);
+    }
+
+    private LikeWriter writer(boolean enabled, LikeWriter.Ack ack, int capacity, int batchSize, long ackTimeoutMs) {
+        LikeWriter likeWriter = new LikeWriter(likeStorage, feedStorage, eventPublisher, transactionManager,
+                enabled, ack, capacity, batchSize, 500, ackTimeoutMs, 10);
+        likeWriter.start();
+        return likeWriter;
+    }
+}
@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageTest {
+
+    @Test
+    void testShouldNotEncodeCursorWithoutOverflowRow() {
+        Page<Long> page = Page.of(List.of(1L, 2L, 3L), 3, id -> Cursor.encode(id));
+        assertEquals(List.of(1L, 2L, 3L), page.getItems());
+        assertNull(page.getNextCursor());
+
+        Page<Long> empty = Page.of(List.of(), 3, id -> Cursor.encode(id));
+        assertTrue(empty.getItems().isEmpty());
+        assertNull(empty.getNextCursor());
+    }
+
+    @Test
+    void testShouldEncodeLastItemWhenOverflowRowPresent() {
+        Page<Long> page = Page.of(List.of(1L, 2L, 3L, 4L), 3, id -> Cursor.encode(id));
+        assertEquals(List.of(1L, 2L, 3L), page.getItems());
+        assertArrayEquals(new long[]{3L}, Cursor.decode(page.getNextCursor(), 1));
+    }
+}
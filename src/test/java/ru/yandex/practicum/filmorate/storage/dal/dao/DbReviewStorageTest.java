@@ -16,8 +16,11 @@ import ru.yandex.practicum.filmorate.storage.database.DbReviewStorage;
 import ru.yandex.practicum.filmorate.storage.database.DbUserStorage;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.springframework.test.annotation.DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD;
@@ -29,14 +32,16 @@ class DbReviewStorageTest {
     @Autowired
     private JdbcTemplate jdbcTemplate;
     private ReviewStorage reviewDao;
+    private FilmStorage filmStorage;
+    private UserStorage userStorage;
     private Review review;
 
 
     @BeforeEach
     void beforeEach() {
         reviewDao = new DbReviewStorage(jdbcTemplate);
-        FilmStorage filmStorage = new DbFilmStorage(jdbcTemplate);
-        UserStorage userStorage = new DbUserStorage(jdbcTemplate);
+        filmStorage = new DbFilmStorage(jdbcTemplate);
+        userStorage = new DbUserStorage(jdbcTemplate);
 
         User user = User.builder()
                 .id(1L)
@@ -135,4 +140,181 @@ class DbReviewStorageTest {
         reviewDao.deleteDislike(1L, 1L);
         assertThat(reviewDao.getReviewById(1L).getUseful()).isEqualTo(0);
     }
-}
\ No newline at end of file
+
+    @Test
+    void repeatedLikeShouldCountOnce() {
+        reviewDao.postLike(1L, 1L);
+        reviewDao.postLike(1L, 1L);
+        assertThat(reviewDao.getReviewById(1L).getUseful()).isEqualTo(1);
+    }
+
+    @Test
+    void switchingVoteShouldReplacePreviousOne() {
+        reviewDao.postLike(1L, 1L);
+        reviewDao.postDislike(1L, 1L);
+        assertThat(reviewDao.getReviewById(1L).getUseful()).isEqualTo(-1);
+
+        reviewDao.postLike(1L, 1L);
+        assertThat(reviewDao.getReviewById(1L).getUseful()).isEqualTo(1);
+        assertThat(reviewDao.recalculateUseful()).isEqualTo(0);
+    }
+
+    @Test
+    void deleteLikeShouldKeepDislike() {
+        reviewDao.postDislike(1L, 1L);
+        reviewDao.deleteLike(1L, 1L);
+        assertThat(reviewDao.getReviewById(1L).getUseful()).isEqualTo(-1);
+
+        reviewDao.deleteDislike(1L, 1L);
+        reviewDao.deleteDislike(1L, 1L);
+        assertThat(reviewDao.getReviewById(1L).getUseful()).isEqualTo(0);
+    }
+
+    @Test
+    void deleteUserShouldRollBackHisVotes() {
+        addUser(2L);
+        addUser(3L);
+        reviewDao.postLike(1L, 2L);
+        reviewDao.postDislike(1L, 3L);
+        reviewDao.postLike(1L, 1L);
+        assertThat(reviewDao.getReviewById(1L).getUseful()).isEqualTo(1);
+
+        userStorage.deleteUser(2L);
+        assertThat(reviewDao.getReviewById(1L).getUseful()).isEqualTo(0);
+        userStorage.deleteUser(3L);
+        assertThat(reviewDao.getReviewById(1L).getUseful()).isEqualTo(1);
+        assertThat(reviewDao.recalculateUseful()).isEqualTo(0);
+    }
+
+    @Test
+    void getReviewByFilmIdShouldOrderByUsefulThenId() {
+        for (long userId = 2; userId <= 3; userId++) {
+            addUser(userId);
+        }
+        Long second = addReview(1L);
+        Long third = addReview(1L);
+        Long fourth = addReview(1L);
+        reviewDao.postLike(third, 2L);
+        reviewDao.postLike(third, 3L);
+        reviewDao.postLike(fourth, 2L);
+        reviewDao.postLike(second, 3L);
+        reviewDao.postDislike(1L, 2L);
+
+        assertThat(ids(reviewDao.getReviewByFilmId(1L, 10))).isEqualTo(List.of(third, second, fourth, 1L));
+        assertThat(ids(reviewDao.getReviewByFilmId(1L, 2))).isEqualTo(List.of(third, second));
+        assertThat(ids(reviewDao.getAllReviews(10))).isEqualTo(List.of(third, second, fourth, 1L));
+    }
+
+    @Test
+    void reviewPagesShouldWalkTiedUsefulWithoutGapsOrDuplicates() {
+        List<Long> expected = prepareTiedReviews();
+
+        assertThat(walkPages(null)).isEqualTo(expected);
+        assertThat(ids(reviewDao.getReviewsPage(Integer.MAX_VALUE, 0L, 10))).isEqualTo(expected);
+    }
+
+    @Test
+    void filmReviewPagesShouldWalkOnlyFilmReviews() {
+        List<Long> expected = prepareTiedReviews().stream()
+                .filter(id -> reviewDao.getReviewById(id).getFilmId() == 1L)
+                .collect(Collectors.toList());
+
+        assertThat(walkPages(1L)).isEqualTo(expected);
+        assertThat(ids(reviewDao.getReviewByFilmId(1L, 10))).isEqualTo(expected);
+    }
+
+    @Test
+    void getReviewsByUserShouldReturnOnlyHisReviewsNewestFirst() {
+        addUser(2L);
+        Long r2 = addReview(1L);
+        Review foreign = Review.builder()
+                .content("Чужой отзыв")
+                .isPositive(true)
+                .userId(2L)
+                .filmId(1L)
+                .build();
+        reviewDao.makeReview(foreign);
+        Long r4 = addReview(1L);
+
+        assertThat(ids(reviewDao.getReviewsByUser(1L, Long.MAX_VALUE, 10))).isEqualTo(List.of(r4, r2, 1L));
+        assertThat(ids(reviewDao.getReviewsByUser(1L, Long.MAX_VALUE, 2))).isEqualTo(List.of(r4, r2));
+        assertThat(ids(reviewDao.getReviewsByUser(1L, r2, 2))).isEqualTo(List.of(1L));
+        assertThat(ids(reviewDao.getReviewsByUser(1L, 1L, 2))).isEqualTo(List.of());
+        assertThat(ids(reviewDao.getReviewsByUser(2L, Long.MAX_VALUE, 10)))
+                .isEqualTo(List.of(foreign.getReviewId()));
+    }
+
+    /**
+     * Семь отзывов к двум фильмам: один с полезностью 2, четыре с 1 и два с 0.
+     * Возвращает их id в порядке useful DESC, review_id.
+     */
+    private List<Long> prepareTiedReviews() {
+        addUser(2L);
+        addUser(3L);
+        filmStorage.addNewFilm(Film.builder()
+                .name("Крестный отец 2")
+                .description("Продолжение")
+                .releaseDate(LocalDate.of(1974, 12, 12))
+                .duration(202)
+                .mpa(Mpa.builder().id(5L).name("NC-17").build())
+                .build());
+        Long r2 = addReview(1L);
+        Long r3 = addReview(1L);
+        Long r4 = addReview(1L);
+        Long r5 = addReview(1L);
+        Long r6 = addReview(2L);
+        Long r7 = addReview(2L);
+        reviewDao.postLike(r3, 2L);
+        reviewDao.postLike(r3, 3L);
+        for (Long id : List.of(r2, r5, r6, r7)) {
+            reviewDao.postLike(id, 2L);
+        }
+        return List.of(r3, r2, r5, r6, r7, 1L, r4);
+    }
+
+    /**
+     * Обходит выдачу страницами по два отзыва, запрашивая limit + 1 строк, как сервис.
+     */
+    private List<Long> walkPages(Long filmId) {
+        List<Long> walked = new ArrayList<>();
+        int afterUseful = Integer.MAX_VALUE;
+        Long afterId = 0L;
+        List<Review> rows;
+        do {
+            rows = filmId == null
+                    ? reviewDao.getReviewsPage(afterUseful, afterId, 3)
+                    : reviewDao.getReviewByFilmIdPage(filmId, afterUseful, afterId, 3);
+            List<Review> items = rows.subList(0, Math.min(rows.size(), 2));
+            items.forEach(item -> walked.add(item.getReviewId()));
+            if (!items.isEmpty()) {
+                afterUseful = items.get(items.size() - 1).getUseful();
+                afterId = items.get(items.size() - 1).getReviewId();
+            }
+        } while (rows.size() > 2);
+        return walked;
+    }
+
+    private void addUser(Long id) {
+        userStorage.addNewUser(User.builder()
+                .email("user" + id + "@email.ru")
+                .name("User " + id)
+                .birthday(LocalDate.of(1990, 1, 1))
+                .login("user" + id)
+                .build());
+    }
+
+    private Long addReview(Long filmId) {
+        Review newReview = Review.builder()
+                .content("Отзыв к фильму " + filmId)
+                .isPositive(true)
+                .userId(1L)
+                .filmId(filmId)
+                .build();
+        reviewDao.makeReview(newReview);
+        return newReview.getReviewId();
+    }
+
+    private static List<Long> ids(Collection<Review> reviews) {
+        return reviews.stream().map(Review::getReviewId).collect(Collectors.toList());
+    }
+}
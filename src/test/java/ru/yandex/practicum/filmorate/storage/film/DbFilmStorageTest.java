@@ -7,23 +7,30 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Like;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.model.User;
-import ru.yandex.practicum.filmorate.model.enums.FilmParameter;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.LikeStorage;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.storage.database.DbDirectorStorage;
 import ru.yandex.practicum.filmorate.storage.database.DbFilmStorage;
+import ru.yandex.practicum.filmorate.storage.database.DbGenreStorage;
 import ru.yandex.practicum.filmorate.storage.database.DbLikeStorage;
 import ru.yandex.practicum.filmorate.storage.database.DbUserStorage;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.springframework.test.annotation.DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD;
@@ -62,6 +69,72 @@ class DbFilmStorageTest {
         assertThat(filmStorage.getAllFilms()).isNotNull();
     }
 
+    @Test
+    void getFilmsPage() {
+        for (int i = 1; i <= 5; i++) {
+            filmStorage.addNewFilm(Film.builder()
+                    .name("Фильм " + i)
+                    .description("Описание")
+                    .releaseDate(LocalDate.of(2000, 1, i))
+                    .duration(100)
+                    .mpa(Mpa.builder().id(1L).name("G").build())
+                    .build());
+        }
+        filmStorage.deleteFilm(3L);
+
+        List<Long> seen = new ArrayList<>();
+        long afterId = 0;
+        while (true) {
+            List<Film> page = new ArrayList<>(filmStorage.getFilmsPage(afterId, 2));
+            if (page.isEmpty()) {
+                break;
+            }
+            page.forEach(film -> seen.add(film.getId()));
+            afterId = page.get(page.size() - 1).getId();
+        }
+        assertThat(seen).isEqualTo(List.of(1L, 2L, 4L, 5L));
+    }
+
+    @Test
+    void exportFilms() {
+        DbGenreStorage genreStorage = new DbGenreStorage(jdbcTemplate);
+        DbDirectorStorage directorStorage = new DbDirectorStorage(jdbcTemplate);
+        Director nolan = directorStorage.addNewDirector(Director.builder().name("Нолан").build());
+        Director coppola = directorStorage.addNewDirector(Director.builder().name("Коппола").build());
+        for (int i = 1; i <= 4; i++) {
+            filmStorage.addNewFilm(Film.builder()
+                    .name("Фильм " + i)
+                    .description("Описание")
+                    .releaseDate(LocalDate.of(2000, 1, i))
+                    .duration(100)
+                    .mpa(Mpa.builder().id(1L).name("G").build())
+                    .build());
+        }
+        genreStorage.updateFilmsGenre(1L, List.of(Genre.builder().id(1L).build(), Genre.builder().id(2L).build()));
+        genreStorage.updateFilmsGenre(3L, List.of(Genre.builder().id(2L).build()));
+        genreStorage.updateFilmsGenre(4L, List.of(Genre.builder().id(6L).build()));
+        directorStorage.updateFilmsDirector(2L, List.of(nolan, coppola));
+        directorStorage.updateFilmsDirector(3L, List.of(coppola));
+        directorStorage.updateFilmsDirector(4L, List.of(nolan));
+        filmStorage.deleteFilm(3L);
+
+        List<Film> exported = new ArrayList<>();
+        filmStorage.exportFilms(exported::add);
+
+        assertThat(exported.stream().map(Film::getId).collect(Collectors.toList())).isEqualTo(List.of(1L, 2L, 4L));
+        assertThat(ids(exported.get(0).getGenres(), Genre::getId)).isEqualTo(Set.of(1L, 2L));
+        assertThat(exported.get(0).getDirectors().isEmpty()).isTrue();
+        assertThat(exported.get(1).getGenres().isEmpty()).isTrue();
+        assertThat(ids(exported.get(1).getDirectors(), Director::getId)).isEqualTo(Set.of(nolan.getId(), coppola.getId()));
+        assertThat(ids(exported.get(2).getGenres(), Genre::getId)).isEqualTo(Set.of(6L));
+        assertThat(ids(exported.get(2).getDirectors(), Director::getId)).isEqualTo(Set.of(nolan.getId()));
+        assertThat(exported.get(2).getLikes()).isNull();
+    }
+
+    private static <T> Set<Long> ids(Collection<T> values, Function<T, Long> id) {
+        return values.stream().map(id).collect(Collectors.toSet());
+    }
+
     @Test
     void getFilmById() {
         Film film1 = Film.builder()
@@ -139,7 +212,7 @@ class DbFilmStorageTest {
     }
 
     @Test
-    void getFavouriteFilms() {
+    void addLike() {
         Film film1 = Film.builder()
                 .name("Крестный отец")
                 .description("Итальянская мафия в США")
@@ -158,23 +231,17 @@ class DbFilmStorageTest {
                 .login("vanya123")
                 .build();
         userStorage.addNewUser(newUser);
-
-        // filmStorage.addLike(film1.getId(), newUser.getId());
-
-        Collection<Film> films = filmStorage.getMostPopularsFilms(10, java.util.Optional.empty(), java.util.Optional.empty());
-        assertThat(films).isNotNull();
+        likeStorage.addLike(film1.getId(), newUser.getId(), Instant.now());
     }
 
     @Test
-    void addLike() {
+    void addLikeTwiceCountsOnce() {
         Film film1 = Film.builder()
                 .name("Крестный отец")
                 .description("Итальянская мафия в США")
                 .releaseDate(LocalDate.of(1972, 3, 15))
                 .duration(175)
                 .mpa(Mpa.builder().id(5L).name("NC-17").build())
-                .genres(Set.of(Genre.builder().name("Боевик").id(6L).build(),
-                        Genre.builder().id(2L).name("Драма").build()))
                 .build();
         filmStorage.addNewFilm(film1);
 
@@ -185,36 +252,52 @@ class DbFilmStorageTest {
                 .login("vanya123")
                 .build();
         userStorage.addNewUser(newUser);
-        likeStorage.addLike(film1.getId(), newUser.getId());
+
+        assertThat(likeStorage.addLike(film1.getId(), newUser.getId(), Instant.now())).isTrue();
+        assertThat(likeStorage.addLike(film1.getId(), newUser.getId(), Instant.now())).isFalse();
+        assertThat(likeStorage.addLikes(List.of(new Like(film1.getId(), newUser.getId(), Instant.now()))).isEmpty()).isTrue();
+        assertThat(likeStorage.getLikesAmount(film1.getId())).isEqualTo(1L);
+        assertThat(likeStorage.getLikes(film1.getId()).size()).isEqualTo(1);
     }
 
     @Test
-    void removeLike() {
+    void likeKeepsCallerTime() {
         Film film1 = Film.builder()
                 .name("Крестный отец")
                 .description("Итальянская мафия в США")
                 .releaseDate(LocalDate.of(1972, 3, 15))
                 .duration(175)
                 .mpa(Mpa.builder().id(5L).name("NC-17").build())
-                .genres(Set.of(Genre.builder().name("Боевик").id(6L).build(),
-                        Genre.builder().id(2L).name("Драма").build()))
                 .build();
         filmStorage.addNewFilm(film1);
-
-        User newUser = User.builder()
+        User first = User.builder()
                 .email("user@email.ru")
                 .name("Ivan Petrov")
                 .birthday(LocalDate.of(1990, 1, 1))
                 .login("vanya123")
                 .build();
-        userStorage.addNewUser(newUser);
+        userStorage.addNewUser(first);
+        User second = User.builder()
+                .email("petr@email.ru")
+                .name("Petr Ivanov")
+                .birthday(LocalDate.of(1991, 1, 1))
+                .login("petya")
+                .build();
+        userStorage.addNewUser(second);
+        Instant single = Instant.parse("2020-01-01T10:15:30Z");
+        Instant batch = Instant.parse("2021-06-01T08:00:00Z");
 
-        likeStorage.addLike(film1.getId(), newUser.getId());
+        likeStorage.addLike(film1.getId(), first.getId(), single);
+        likeStorage.addLikes(List.of(new Like(film1.getId(), second.getId(), batch)));
 
+        assertThat(likeStorage.removeLike(film1.getId(), first.getId())).contains(single);
+        List<Like> removed = likeStorage.removeLikes(List.of(new Like(film1.getId(), second.getId())));
+        assertThat(removed.size()).isEqualTo(1);
+        assertThat(removed.get(0).getCreatedAt()).isEqualTo(batch);
     }
 
     @Test
-    void getCommonFilms() {
+    void removeLike() {
         Film film1 = Film.builder()
                 .name("Крестный отец")
                 .description("Итальянская мафия в США")
@@ -224,12 +307,8 @@ class DbFilmStorageTest {
                 .genres(Set.of(Genre.builder().name("Боевик").id(6L).build(),
                         Genre.builder().id(2L).name("Драма").build()))
                 .build();
-        film1.setLikes(Set.of(1L, 2L));
         filmStorage.addNewFilm(film1);
 
-        Collection<Film> commonFilms = new ArrayList<>();
-        commonFilms.add(film1);
-
         User newUser = User.builder()
                 .email("user@email.ru")
                 .name("Ivan Petrov")
@@ -237,43 +316,9 @@ class DbFilmStorageTest {
                 .login("vanya123")
                 .build();
         userStorage.addNewUser(newUser);
-        User newUser1 = User.builder()
-                .email("user1@email.ru")
-                .name("Ivan1 Petrov1")
-                .birthday(LocalDate.of(1990, 1, 1))
-                .login("vanya1231")
-                .build();
-        userStorage.addNewUser(newUser1);
-        likeStorage.addLike(1L, 1L);
-        likeStorage.addLike(1L, 2L);
-        Collection<Film> savedFilmsCommon = filmStorage.getCommonFilms(1L, 2L);
-    }
 
-    @Test
-    public void testSearchFilmByTitle() {
-        DbFilmStorage dbFilmStorage = new DbFilmStorage(jdbcTemplate);
-        String query = "Some query";
-        FilmParameter[] filmSearchParameter = {FilmParameter.title};
-        Collection<Film> films = dbFilmStorage.searchFilmByParameter(query, filmSearchParameter);
-        assertThat(films).isNotNull();
-    }
+        likeStorage.addLike(film1.getId(), newUser.getId(), Instant.now());
 
-    @Test
-    public void testSearchFilmByDirector() {
-        DbFilmStorage dbFilmStorage = new DbFilmStorage(jdbcTemplate);
-        String query = "Some query";
-        FilmParameter[] filmSearchParameter = {FilmParameter.director};
-        Collection<Film> films = dbFilmStorage.searchFilmByParameter(query, filmSearchParameter);
-        assertThat(films).isNotNull();
-    }
-
-    @Test
-    public void testSearchFilmByDirectorAndTitle() {
-        DbFilmStorage dbFilmStorage = new DbFilmStorage(jdbcTemplate);
-        String query = "Some query";
-        FilmParameter[] filmSearchParameter = {FilmParameter.director, FilmParameter.title};
-        Collection<Film> films = dbFilmStorage.searchFilmByParameter(query, filmSearchParameter);
-        assertThat(films).isNotNull();
     }
 
 }
\ No newline at end of file
@@ -12,8 +12,11 @@ import ru.yandex.practicum.filmorate.storage.UserStorage;
 import ru.yandex.practicum.filmorate.storage.database.DbUserStorage;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.springframework.test.annotation.DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD;
@@ -219,4 +222,99 @@ public class DbUserStorageTest {
         Collection<User> users = userDbStorage.getCommonFriends(user1.getId(), user2.getId());
         assertThat(users).isNotNull();
     }
-}
\ No newline at end of file
+
+    @Test
+    void getFriendsPageShouldWalkAllFriendsWithoutGapsOrDuplicates() {
+        User user = addUser(0);
+        List<Long> friendIds = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            User friend = addUser(i);
+            userDbStorage.addFriend(user.getId(), friend.getId());
+            friendIds.add(friend.getId());
+        }
+
+        List<Long> walked = new ArrayList<>();
+        long afterId = 0;
+        List<Long> page;
+        do {
+            page = ids(userDbStorage.getFriendsPage(user.getId(), afterId, 3));
+            assertThat(page.size() <= 3).isTrue();
+            List<Long> items = page.subList(0, Math.min(page.size(), 2));
+            walked.addAll(items);
+            if (!items.isEmpty()) {
+                afterId = items.get(items.size() - 1);
+            }
+        } while (page.size() > 2);
+
+        assertThat(walked).isEqualTo(friendIds);
+        assertThat(ids(userDbStorage.getFriendsPage(user.getId(), afterId, 3))).isEqualTo(List.of());
+    }
+
+    @Test
+    void getCommonFriendsPageShouldReturnOnlyCommonFriendsAfterCursor() {
+        User user1 = addUser(1);
+        User user2 = addUser(2);
+        List<Long> commonIds = new ArrayList<>();
+        for (int i = 3; i <= 7; i++) {
+            User friend = addUser(i);
+            userDbStorage.addFriend(user1.getId(), friend.getId());
+            if (i != 5) {
+                userDbStorage.addFriend(user2.getId(), friend.getId());
+                commonIds.add(friend.getId());
+            }
+        }
+
+        assertThat(ids(userDbStorage.getCommonFriendsPage(user1.getId(), user2.getId(), 0, 10)))
+                .isEqualTo(commonIds);
+        assertThat(ids(userDbStorage.getCommonFriendsPage(user1.getId(), user2.getId(), 0, 3)))
+                .isEqualTo(commonIds.subList(0, 3));
+        assertThat(ids(userDbStorage.getCommonFriendsPage(user1.getId(), user2.getId(), commonIds.get(1), 3)))
+                .isEqualTo(commonIds.subList(2, 4));
+        assertThat(ids(userDbStorage.getCommonFriendsPage(user1.getId(), user2.getId(), commonIds.get(3), 3)))
+                .isEqualTo(List.of());
+    }
+
+    @Test
+    void getAllUsersShouldAttachFriendsFromOneQuery() {
+        User user1 = addUser(1);
+        User user2 = addUser(2);
+        User user3 = addUser(3);
+        userDbStorage.addFriend(user1.getId(), user2.getId());
+        userDbStorage.addFriend(user1.getId(), user3.getId());
+        userDbStorage.addFriend(user3.getId(), user1.getId());
+
+        List<User> users = List.copyOf(userDbStorage.getAllUsers());
+        assertThat(users.get(0).getFriendsIds()).isEqualTo(Set.of(user2.getId(), user3.getId()));
+        assertThat(users.get(1).getFriendsIds()).isEqualTo(Set.of());
+        assertThat(users.get(2).getFriendsIds()).isEqualTo(Set.of(user1.getId()));
+    }
+
+    @Test
+    void getUsersByIdsShouldSplitLongIdListsIntoChunks() {
+        User first = addUser(1);
+        User second = addUser(2);
+        List<Long> ids = new ArrayList<>();
+        for (long id = 2 * 500 + 10; id > 2; id--) {
+            ids.add(id);
+        }
+        ids.add(second.getId());
+        ids.add(first.getId());
+
+        assertThat(ids(userDbStorage.getUsersByIds(ids))).isEqualTo(List.of(second.getId(), first.getId()));
+    }
+
+    private User addUser(int n) {
+        User user = User.builder()
+                .email("user" + n + "@email.ru")
+                .name("User " + n)
+                .birthday(LocalDate.of(1990, 1, 1))
+                .login("user" + n)
+                .build();
+        userDbStorage.addNewUser(user);
+        return user;
+    }
+
+    private static List<Long> ids(Collection<User> users) {
+        return users.stream().map(User::getId).collect(Collectors.toList());
+    }
+}